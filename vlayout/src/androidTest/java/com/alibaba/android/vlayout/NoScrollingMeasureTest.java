@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import java.util.Collections;
+
+/**
+ * Checks that noScrolling mode with single pass measure lays out its RecyclerView only once.
+ */
+public class NoScrollingMeasureTest extends ActivityInstrumentationTestCase2<Activity> {
+
+    private static final int ITEM_COUNT = 20;
+
+    private static final int ITEM_HEIGHT = 50;
+
+    private CountingRecyclerView mRecyclerView;
+
+    public NoScrollingMeasureTest() {
+        super("com.tmall.wireless.tangram", Activity.class);
+    }
+
+    public void testSinglePassMeasure() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView = new CountingRecyclerView(getActivity());
+                VirtualLayoutManager layoutManager = new VirtualLayoutManager(getActivity());
+                layoutManager.setNoScrolling(true, true);
+                mRecyclerView.setLayoutManager(layoutManager);
+
+                LinearLayoutHelper helper = new LinearLayoutHelper();
+                helper.setItemCount(ITEM_COUNT);
+                layoutManager.setLayoutHelpers(Collections.<LayoutHelper>singletonList(helper));
+                mRecyclerView.setAdapter(new FixedHeightAdapter());
+
+                ((ViewGroup) getActivity().findViewById(android.R.id.content)).addView(mRecyclerView,
+                        new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        // give a posted relayout, if any, the chance to run
+        Thread.sleep(200);
+        getInstrumentation().waitForIdleSync();
+
+        assertEquals("RecyclerView should be laid out only once", 1, mRecyclerView.mLayoutCount);
+        assertEquals("all items should be laid out", ITEM_COUNT, mRecyclerView.getChildCount());
+        assertEquals("height should fit all items", ITEM_COUNT * ITEM_HEIGHT, mRecyclerView.getHeight());
+    }
+
+    static class CountingRecyclerView extends RecyclerView {
+
+        int mLayoutCount = 0;
+
+        CountingRecyclerView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mLayoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    static class FixedHeightAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
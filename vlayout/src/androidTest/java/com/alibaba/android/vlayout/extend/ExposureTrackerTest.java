@@ -0,0 +1,119 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks the events reported by {@link ExposureTracker} and their de-duplication.
+ */
+public class ExposureTrackerTest extends ActivityInstrumentationTestCase2<Activity> {
+
+    private static final int ITEM_COUNT = 20;
+
+    private static final int ITEM_HEIGHT = 50;
+
+    private static final long DEDUP_WINDOW = 60 * 1000;
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private final List<int[]> mEvents = new ArrayList<>();
+
+    public ExposureTrackerTest() {
+        super("com.tmall.wireless.tangram", Activity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView = new RecyclerView(getActivity());
+                mLayoutManager = new VirtualLayoutManager(getActivity());
+                mRecyclerView.setLayoutManager(mLayoutManager);
+
+                LinearLayoutHelper helper = new LinearLayoutHelper();
+                helper.setItemCount(ITEM_COUNT);
+                mLayoutManager.setLayoutHelpers(Collections.<LayoutHelper>singletonList(helper));
+                mRecyclerView.setAdapter(new FixedHeightAdapter());
+
+                ((ViewGroup) getActivity().findViewById(android.R.id.content)).addView(mRecyclerView,
+                        new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testAppearDisappearIsReportedOnceWithinWindow() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                // attached after the first layout, so only the calls below are reported
+                ExposureTracker tracker = new ExposureTracker(new ExposureTracker.ExposureListener() {
+                    @Override
+                    public void onExposure(ExposureTracker.ExposureBatch batch) {
+                        for (int i = 0; i < batch.size(); i++) {
+                            mEvents.add(new int[]{batch.getEvent(i), batch.getPosition(i)});
+                        }
+                    }
+                }, 16, null, DEDUP_WINDOW);
+                tracker.attach(mRecyclerView, mLayoutManager);
+
+                View child = mLayoutManager.findViewByPosition(0);
+                assertNotNull("first item should be laid out", child);
+
+                tracker.onAppeared(child);
+                tracker.onDisappeared(child);
+                tracker.flush();
+
+                assertEquals("one appear and one disappear event", 2, mEvents.size());
+                assertEquals(ExposureTracker.EVENT_APPEAR, mEvents.get(0)[0]);
+                assertEquals(0, mEvents.get(0)[1]);
+                assertEquals(ExposureTracker.EVENT_DISAPPEAR, mEvents.get(1)[0]);
+                assertEquals(0, mEvents.get(1)[1]);
+
+                tracker.onAppeared(child);
+                tracker.onDisappeared(child);
+                tracker.flush();
+
+                assertEquals("repeat inside the dedup window should not be reported", 2, mEvents.size());
+                tracker.detach();
+            }
+        });
+    }
+
+    static class FixedHeightAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
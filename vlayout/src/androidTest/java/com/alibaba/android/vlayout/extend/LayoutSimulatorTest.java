@@ -0,0 +1,136 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares counts estimated by {@link LayoutSimulator} with a real RecyclerView scrolled through the same helpers.
+ */
+public class LayoutSimulatorTest extends ActivityInstrumentationTestCase2<Activity> {
+
+    private static final String TAG = "LayoutSimulatorTest";
+
+    private static final int LINEAR_COUNT = 10;
+
+    private static final int GRID_COUNT = 90;
+
+    private static final int SPAN_COUNT = 3;
+
+    private static final int ITEM_HEIGHT = 60;
+
+    private static final int WIDTH = 600;
+
+    private static final int HEIGHT = 500;
+
+    private static final int SCROLL_STEP = 25;
+
+    /**
+     * Allowed difference of totals, RecyclerView may lay out an extra view at an edge
+     */
+    private static final int TOLERANCE = 2;
+
+    private RecyclerView mRecyclerView;
+
+    private CountingAdapter mAdapter;
+
+    private List<LayoutHelper> mHelpers;
+
+    public LayoutSimulatorTest() {
+        super("com.tmall.wireless.tangram", Activity.class);
+    }
+
+    public void testMatchesRecyclerView() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView = new RecyclerView(getActivity());
+                VirtualLayoutManager layoutManager = new VirtualLayoutManager(getActivity());
+                mRecyclerView.setLayoutManager(layoutManager);
+                mRecyclerView.setItemAnimator(null);
+
+                LinearLayoutHelper linear = new LinearLayoutHelper();
+                linear.setItemCount(LINEAR_COUNT);
+                GridLayoutHelper grid = new GridLayoutHelper(SPAN_COUNT);
+                grid.setItemCount(GRID_COUNT);
+                mHelpers = Arrays.<LayoutHelper>asList(linear, grid);
+                layoutManager.setLayoutHelpers(mHelpers);
+                mAdapter = new CountingAdapter();
+                mRecyclerView.setAdapter(mAdapter);
+
+                ((ViewGroup) getActivity().findViewById(android.R.id.content)).addView(mRecyclerView,
+                        new FrameLayout.LayoutParams(WIDTH, HEIGHT));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                while (mRecyclerView.canScrollVertically(1)) {
+                    mRecyclerView.scrollBy(0, SCROLL_STEP);
+                }
+
+                LayoutSimulator.Report report = new LayoutSimulator().simulate(
+                        LayoutSimulator.sectionsOf(mHelpers, VirtualLayoutManager.VERTICAL),
+                        new LayoutSimulator.ItemSizer() {
+                            @Override
+                            public int getItemExtent(int position) {
+                                return ITEM_HEIGHT;
+                            }
+                        }, mRecyclerView.getHeight(), SCROLL_STEP);
+
+                Log.i(TAG, "created " + mAdapter.mCreated + " / " + report.getTotalCreatedCount()
+                        + ", bound " + mAdapter.mBound + " / " + report.getTotalBoundCount());
+                assertTrue("created: " + mAdapter.mCreated + ", simulated: " + report.getTotalCreatedCount(),
+                        Math.abs(mAdapter.mCreated - report.getTotalCreatedCount()) <= TOLERANCE);
+                assertTrue("bound: " + mAdapter.mBound + ", simulated: " + report.getTotalBoundCount(),
+                        Math.abs(mAdapter.mBound - report.getTotalBoundCount()) <= TOLERANCE);
+            }
+        });
+    }
+
+    static class CountingAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        int mCreated = 0;
+
+        int mBound = 0;
+
+        @Override
+        public int getItemViewType(int position) {
+            // each section has its own view type, as the simulator assumes by default
+            return position < LINEAR_COUNT ? 0 : 1;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            mCreated++;
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            mBound++;
+        }
+
+        @Override
+        public int getItemCount() {
+            return LINEAR_COUNT + GRID_COUNT;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout.layout;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import java.util.Collections;
+
+/**
+ * Checks sizes and the avoided measure count of {@link GridLayoutHelper} with uniform row height.
+ */
+public class GridLayoutHelperUniformRowTest extends ActivityInstrumentationTestCase2<Activity> {
+
+    private static final int SPAN_COUNT = 4;
+
+    private static final int ITEM_COUNT = 200;
+
+    private static final int SHORT_HEIGHT = 40;
+
+    private static final int TALL_HEIGHT = 80;
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    public GridLayoutHelperUniformRowTest() {
+        super("com.tmall.wireless.tangram", Activity.class);
+    }
+
+    public void testSameSizeRowsAvoidNothing() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                GridLayoutHelper helper = new GridLayoutHelper(SPAN_COUNT);
+                RecyclerView recyclerView = layout(helper, false);
+
+                // every view measures the row size at once, the baseline would not measure any of them twice
+                assertEquals(0, helper.getAvoidedMeasureCount());
+                assertRowsMatch(recyclerView, SHORT_HEIGHT);
+            }
+        });
+    }
+
+    public void testTallerRowsAvoidSecondMeasure() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                GridLayoutHelper helper = new GridLayoutHelper(SPAN_COUNT);
+                RecyclerView recyclerView = layout(helper, true);
+
+                // the first short view of each row is measured twice, the other two only once with the row size
+                final int rows = recyclerView.getChildCount() / SPAN_COUNT;
+                assertTrue("rows should be laid out", rows > 0);
+                assertEquals((SPAN_COUNT - 2) * rows, helper.getAvoidedMeasureCount());
+                assertRowsMatch(recyclerView, TALL_HEIGHT);
+            }
+        });
+    }
+
+    private RecyclerView layout(GridLayoutHelper helper, boolean tallFirstColumn) {
+        RecyclerView recyclerView = new RecyclerView(getActivity());
+        VirtualLayoutManager layoutManager = new VirtualLayoutManager(getActivity());
+        recyclerView.setLayoutManager(layoutManager);
+        helper.setItemCount(ITEM_COUNT);
+        helper.setUniformRowHeight(true);
+        layoutManager.setLayoutHelpers(Collections.<LayoutHelper>singletonList(helper));
+        recyclerView.setAdapter(new TwoTypeAdapter(tallFirstColumn));
+
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY);
+        recyclerView.measure(widthSpec, heightSpec);
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+
+        // count a single layout pass
+        helper.resetAvoidedMeasureCount();
+        recyclerView.requestLayout();
+        recyclerView.measure(widthSpec, heightSpec);
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+        return recyclerView;
+    }
+
+    private static void assertRowsMatch(RecyclerView recyclerView, int rowHeight) {
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            assertEquals("views in a row should share its height", rowHeight, recyclerView.getChildAt(i).getHeight());
+        }
+    }
+
+    static class TwoTypeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final boolean mTallFirstColumn;
+
+        TwoTypeAdapter(boolean tallFirstColumn) {
+            mTallFirstColumn = tallFirstColumn;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mTallFirstColumn && position % SPAN_COUNT == 0 ? 1 : 0;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    viewType == 1 ? TALL_HEIGHT : SHORT_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout.layout;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import java.util.Collections;
+
+/**
+ * Compares per chunk layout cost of the generic path through OrientationHelperEx with the vertical fast path of
+ * linear and grid helpers, in the same vertical orientation. Results are logged, layouts must be identical.
+ */
+public class LayoutChunkBenchmarkTest extends ActivityInstrumentationTestCase2<Activity> {
+
+    private static final String TAG = "LayoutChunkBenchmark";
+
+    private static final int ITEM_COUNT = 400;
+
+    private static final int ITEM_SIZE = 20;
+
+    private static final int WARM_UP = 20;
+
+    private static final int ITERATIONS = 200;
+
+    /**
+     * Generic and fast paths take turns, so neither one always runs on a warmer runtime
+     */
+    private static final int ROUNDS = 5;
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    public LayoutChunkBenchmarkTest() {
+        super("com.tmall.wireless.tangram", Activity.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BaseLayoutHelper.sVerticalFastPath = true;
+        super.tearDown();
+    }
+
+    public void testLinearChunkCost() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                compare("LinearLayoutHelper", new LinearLayoutHelper(), new LinearLayoutHelper(), 1);
+            }
+        });
+    }
+
+    public void testGridChunkCost() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                compare("GridLayoutHelper", new GridLayoutHelper(4), new GridLayoutHelper(4), 4);
+            }
+        });
+    }
+
+    private void compare(String name, LayoutHelper genericHelper, LayoutHelper fastHelper, int itemsPerChunk) {
+        RecyclerView generic = createRecyclerView(genericHelper);
+        RecyclerView fast = createRecyclerView(fastHelper);
+
+        long genericTotal = 0;
+        long fastTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            BaseLayoutHelper.sVerticalFastPath = false;
+            genericTotal += measureChunkCost(generic, itemsPerChunk);
+            BaseLayoutHelper.sVerticalFastPath = true;
+            fastTotal += measureChunkCost(fast, itemsPerChunk);
+        }
+        final long genericCost = genericTotal / ROUNDS;
+        final long fastCost = fastTotal / ROUNDS;
+        Log.i(TAG, name + " vertical ns per chunk, generic: " + genericCost + ", fast path: " + fastCost
+                + ", gain: " + (genericCost == 0 ? 0 : (genericCost - fastCost) * 100 / genericCost) + "%");
+
+        assertEquals(generic.getChildCount(), fast.getChildCount());
+        final Rect genericBounds = new Rect();
+        final Rect fastBounds = new Rect();
+        for (int i = 0; i < generic.getChildCount(); i++) {
+            generic.getChildAt(i).getHitRect(genericBounds);
+            fast.getChildAt(i).getHitRect(fastBounds);
+            assertEquals("both paths should lay out child " + i + " the same", genericBounds, fastBounds);
+        }
+    }
+
+    private RecyclerView createRecyclerView(LayoutHelper layoutHelper) {
+        RecyclerView recyclerView = new RecyclerView(getActivity());
+        VirtualLayoutManager layoutManager = new VirtualLayoutManager(getActivity());
+        recyclerView.setLayoutManager(layoutManager);
+        layoutHelper.setItemCount(ITEM_COUNT);
+        layoutManager.setLayoutHelpers(Collections.singletonList(layoutHelper));
+        recyclerView.setAdapter(new FixedSizeAdapter());
+        return recyclerView;
+    }
+
+    /**
+     * @return average nanoseconds spent on a chunk, a row for grid
+     */
+    private static long measureChunkCost(RecyclerView recyclerView, int itemsPerChunk) {
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY);
+
+        for (int i = 0; i < WARM_UP; i++) {
+            layout(recyclerView, widthSpec, heightSpec);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            layout(recyclerView, widthSpec, heightSpec);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        final int chunks = (recyclerView.getChildCount() + itemsPerChunk - 1) / itemsPerChunk;
+        assertTrue("items should be laid out", chunks > 0);
+        return elapsed / ((long) ITERATIONS * chunks);
+    }
+
+    private static void layout(RecyclerView recyclerView, int widthSpec, int heightSpec) {
+        recyclerView.requestLayout();
+        recyclerView.measure(widthSpec, heightSpec);
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    static class FixedSizeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            VirtualLayoutManager.LayoutParams params = new VirtualLayoutManager.LayoutParams(ITEM_SIZE, ITEM_SIZE);
+            // margins make the decorated measurements differ from the raw ones
+            params.setMargins(1, 2, 3, 4);
+            view.setLayoutParams(params);
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout.layout;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the packed span lookup state with the raw int array format.
+ */
+public class StaggeredGridLayoutHelperStateTest extends TestCase {
+
+    private static final String TAG = "StaggeredStateTest";
+
+    private static final int ITEM_COUNT = 20000;
+
+    private static final int LANES = 3;
+
+    private static final int ROUNDS = 50;
+
+    private StaggeredGridLayoutHelper.LazySpanLookup createLookup() {
+        StaggeredGridLayoutHelper.LazySpanLookup lookup = new StaggeredGridLayoutHelper.LazySpanLookup();
+        lookup.ensureSize(ITEM_COUNT - 1);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            lookup.mData[i] = (i * 7 + i / 5) % LANES;
+        }
+        return lookup;
+    }
+
+    public void testPackRoundTrip() {
+        StaggeredGridLayoutHelper.LazySpanLookup lookup = createLookup();
+        lookup.mData[ITEM_COUNT - 2] = Integer.MIN_VALUE;
+
+        byte[] packed = lookup.pack(0, 0);
+        StaggeredGridLayoutHelper.LazySpanLookup restored = new StaggeredGridLayoutHelper.LazySpanLookup();
+        restored.unpack(packed, 0);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            assertEquals("span of " + i, lookup.getSpan(i), restored.getSpan(i));
+        }
+    }
+
+    public void testWindowAroundAnchor() {
+        StaggeredGridLayoutHelper.LazySpanLookup lookup = createLookup();
+        final int anchor = 15000;
+        final int maxCount = StaggeredGridLayoutHelper.DEFAULT_MAX_SAVED_SPAN_COUNT;
+
+        int offset = lookup.windowStart(anchor, maxCount);
+        byte[] packed = lookup.pack(offset, maxCount);
+        assertEquals(maxCount, packed.length);
+        assertTrue(offset <= anchor && anchor < offset + maxCount);
+
+        StaggeredGridLayoutHelper.LazySpanLookup restored = new StaggeredGridLayoutHelper.LazySpanLookup();
+        restored.unpack(packed, offset);
+        assertEquals(Integer.MIN_VALUE, restored.getSpan(offset - 1));
+        for (int i = offset; i < offset + maxCount; i++) {
+            assertEquals("span of " + i, lookup.getSpan(i), restored.getSpan(i));
+        }
+    }
+
+    public void testSaveRestoreBenchmark() {
+        StaggeredGridLayoutHelper.LazySpanLookup lookup = createLookup();
+
+        long rawTime = 0, packedTime = 0;
+        int rawSize = 0, packedSize = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Bundle raw = new Bundle();
+            raw.putIntArray("raw", lookup.mData);
+            rawSize = marshall(raw);
+            new StaggeredGridLayoutHelper.LazySpanLookup().mData = raw.getIntArray("raw");
+            rawTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Bundle packed = new Bundle();
+            int offset = lookup.windowStart(ITEM_COUNT / 2, StaggeredGridLayoutHelper.DEFAULT_MAX_SAVED_SPAN_COUNT);
+            packed.putInt("offset", offset);
+            packed.putByteArray("packed", lookup.pack(offset, StaggeredGridLayoutHelper.DEFAULT_MAX_SAVED_SPAN_COUNT));
+            packedSize = marshall(packed);
+            new StaggeredGridLayoutHelper.LazySpanLookup().unpack(packed.getByteArray("packed"), packed.getInt("offset"));
+            packedTime += System.nanoTime() - start;
+        }
+
+        Log.i(TAG, "raw: " + rawSize + " bytes, " + rawTime / ROUNDS / 1000 + "us; packed: "
+                + packedSize + " bytes, " + packedTime / ROUNDS / 1000 + "us");
+        assertTrue(packedSize < rawSize);
+    }
+
+    private int marshall(Bundle bundle) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            bundle.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout;
+
+import java.util.List;
+
+/**
+ * Result of diffing sub adapters of {@link DelegateAdapter}, computed off main thread by {@link #compute()}.
+ * Sections are matched by adapter identity; items of a kept {@link DelegateAdapter.DiffAdapter} are reduced to a
+ * common prefix and suffix and one replaced range in between.
+ */
+final class AdapterDiff {
+
+    final int mGeneration;
+
+    final DelegateAdapter.Adapter[] mOldAdapters;
+
+    final List[] mOldData;
+
+    final DelegateAdapter.Adapter[] mNewAdapters;
+
+    final List[] mNewData;
+
+    /**
+     * Index of each new adapter in old adapters, -1 for added ones
+     */
+    int[] mOldIndices;
+
+    /**
+     * Whether each old adapter is still present
+     */
+    boolean[] mKept;
+
+    /**
+     * For each new adapter: common prefix length, old and new length of the replaced range; null if not diffed
+     */
+    int[][] mItemRanges;
+
+    /**
+     * Kept adapters changed their relative order, which can not be expressed as range updates
+     */
+    boolean mReordered = false;
+
+    AdapterDiff(int generation, DelegateAdapter.Adapter[] oldAdapters, List[] oldData,
+                DelegateAdapter.Adapter[] newAdapters, List[] newData) {
+        mGeneration = generation;
+        mOldAdapters = oldAdapters;
+        mOldData = oldData;
+        mNewAdapters = newAdapters;
+        mNewData = newData;
+    }
+
+    @SuppressWarnings("unchecked")
+    void compute() {
+        final int oldSize = mOldAdapters.length;
+        final int newSize = mNewAdapters.length;
+        mOldIndices = new int[newSize];
+        mKept = new boolean[oldSize];
+        mItemRanges = new int[newSize][];
+
+        int lastOldIndex = -1;
+        for (int j = 0; j < newSize; j++) {
+            int oldIndex = -1;
+            for (int i = 0; i < oldSize; i++) {
+                if (mOldAdapters[i] == mNewAdapters[j]) {
+                    oldIndex = i;
+                    break;
+                }
+            }
+            mOldIndices[j] = oldIndex;
+            if (oldIndex < 0) {
+                continue;
+            }
+
+            mKept[oldIndex] = true;
+            if (oldIndex < lastOldIndex) {
+                mReordered = true;
+            }
+            lastOldIndex = oldIndex;
+
+            if (mNewAdapters[j] instanceof DelegateAdapter.DiffAdapter && mOldData[oldIndex] != null && mNewData[j] != null) {
+                mItemRanges[j] = diffItems((DelegateAdapter.DiffAdapter) mNewAdapters[j], mOldData[oldIndex], mNewData[j]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int[] diffItems(DelegateAdapter.DiffAdapter adapter, List oldItems, List newItems) {
+        final int oldCount = oldItems.size();
+        final int newCount = newItems.size();
+        final int max = Math.min(oldCount, newCount);
+
+        int prefix = 0;
+        while (prefix < max && isSame(adapter, oldItems.get(prefix), newItems.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < max - prefix
+                && isSame(adapter, oldItems.get(oldCount - 1 - suffix), newItems.get(newCount - 1 - suffix))) {
+            suffix++;
+        }
+
+        return new int[]{prefix, oldCount - prefix - suffix, newCount - prefix - suffix};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isSame(DelegateAdapter.DiffAdapter adapter, Object oldItem, Object newItem) {
+        return adapter.areItemsTheSame(oldItem, newItem) && adapter.areContentsTheSame(oldItem, newItem);
+    }
+}
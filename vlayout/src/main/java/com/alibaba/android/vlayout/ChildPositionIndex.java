@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout;
+
+import android.view.View;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer from adapter position to attached child, attached positions are mostly contiguous so a window of
+ * positions covers them all. Entries are only hints, callers must verify the view before using it.
+ */
+final class ChildPositionIndex {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * positions are too sparse to be indexed if the window grows beyond this
+     */
+    private static final int MAX_CAPACITY = 4096;
+
+    private View[] mViews = new View[INITIAL_CAPACITY];
+
+    /**
+     * slot of {@link #mFirstPosition}
+     */
+    private int mHead = 0;
+
+    private int mFirstPosition = 0;
+
+    private int mCount = 0;
+
+    View get(int position) {
+        if (mCount == 0 || position < mFirstPosition || position >= mFirstPosition + mCount) {
+            return null;
+        }
+        return mViews[slot(position)];
+    }
+
+    void put(int position, View view) {
+        if (position < 0) {
+            return;
+        }
+
+        if (mCount == 0) {
+            mHead = 0;
+            mFirstPosition = position;
+            mCount = 1;
+            mViews[0] = view;
+            return;
+        }
+
+        final int lastPosition = mFirstPosition + mCount - 1;
+        if (position >= mFirstPosition && position <= lastPosition) {
+            mViews[slot(position)] = view;
+            return;
+        }
+
+        final int newCount = Math.max(lastPosition, position) - Math.min(mFirstPosition, position) + 1;
+        if (newCount > MAX_CAPACITY) {
+            // jumped far away, restart the window here
+            clear();
+            put(position, view);
+            return;
+        }
+        ensureCapacity(newCount);
+
+        final int mask = mViews.length - 1;
+        if (position < mFirstPosition) {
+            final int extra = mFirstPosition - position;
+            mHead = (mHead - extra) & mask;
+            for (int i = 0; i < extra; i++) {
+                mViews[(mHead + i) & mask] = null;
+            }
+            mFirstPosition = position;
+        } else {
+            for (int i = mCount; i < newCount; i++) {
+                mViews[(mHead + i) & mask] = null;
+            }
+        }
+        mCount = newCount;
+        mViews[slot(position)] = view;
+    }
+
+    void remove(int position, View view) {
+        if (view != null && get(position) == view) {
+            mViews[slot(position)] = null;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(mViews, null);
+        mHead = 0;
+        mFirstPosition = 0;
+        mCount = 0;
+    }
+
+    private int slot(int position) {
+        return (mHead + position - mFirstPosition) & (mViews.length - 1);
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= mViews.length) {
+            return;
+        }
+
+        int capacity = mViews.length;
+        while (capacity < count) {
+            capacity <<= 1;
+        }
+
+        View[] views = new View[capacity];
+        for (int i = 0; i < mCount; i++) {
+            views[i] = mViews[(mHead + i) & (mViews.length - 1)];
+        }
+        mViews = views;
+        mHead = 0;
+    }
+}
@@ -24,6 +24,8 @@
 
 package com.alibaba.android.vlayout;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
@@ -32,6 +34,7 @@ import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
 import com.alibaba.android.vlayout.layout.SingleLayoutHelper;
 
 import java.util.ArrayList;
@@ -39,6 +42,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static android.support.v7.widget.RecyclerView.NO_ID;
@@ -51,6 +55,11 @@ import static android.support.v7.widget.RecyclerView.NO_ID;
  */
 public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolder> {
 
+    /**
+     * View type used by placeholders of {@link LazyAdapter} that are not materialized yet
+     */
+    private static final int TYPE_LAZY_PLACEHOLDER = Integer.MIN_VALUE;
+
     @Nullable
     private AtomicInteger mIndexGen;
 
@@ -69,6 +78,36 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
 
     private long[] cantorReverse = new long[2];
 
+    @Nullable
+    private RecyclerView mRecyclerView;
+
+    private int mLazyMaterializeDistance = 0;
+
+    private boolean mMaterializePending = false;
+
+    /**
+     * Increased on every structural change, results of {@link #updateAdaptersAsync} computed against an older one are dropped
+     */
+    private int mUpdateGeneration = 0;
+
+    @Nullable
+    private Handler mMainHandler;
+
+    private final Runnable mMaterializeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mMaterializePending = false;
+            materializeNearViewport();
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mLazyScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            requestMaterialize();
+        }
+    };
+
     /**
      * Delegate Adapter merge multi sub adapters, default is thread-unsafe
      *
@@ -104,6 +143,10 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
 
+        if (viewType == TYPE_LAZY_PLACEHOLDER) {
+            return new PlaceholderViewHolder(new View(parent.getContext()));
+        }
+
         if (mHasConsistItemType) {
             Adapter adapter = mItemTypeAry.get(viewType);
             if (adapter != null) {
@@ -138,6 +181,9 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
 
         pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition);
         pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position);
+        if (pair.second instanceof LazyAdapter) {
+            requestMaterialize();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -149,6 +195,9 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         }
         pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition, payloads);
         pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position, payloads);
+        if (pair.second instanceof LazyAdapter) {
+            requestMaterialize();
+        }
 
     }
 
@@ -170,6 +219,10 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
             return RecyclerView.INVALID_TYPE;
         }
 
+        if (p.second instanceof LazyAdapter) {
+            return TYPE_LAZY_PLACEHOLDER;
+        }
+
         int subItemType = p.second.getItemViewType(position - p.first.mStartPosition);
 
         if (subItemType < 0) {
@@ -221,7 +274,7 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         super.onViewRecycled(holder);
 
         int position = holder.getPosition();
-        if (position >= 0) {
+        if (position >= 0 && !(holder instanceof PlaceholderViewHolder)) {
             Pair<AdapterDataObserver, Adapter> pair = findAdapterByPosition(position);
             if (pair != null) {
                 pair.second.onViewRecycled(holder);
@@ -235,7 +288,7 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
     public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
         super.onViewAttachedToWindow(holder);
         int position = holder.getPosition();
-        if (position >= 0) {
+        if (position >= 0 && !(holder instanceof PlaceholderViewHolder)) {
             Pair<AdapterDataObserver, Adapter> pair = findAdapterByPosition(position);
             if (pair != null) {
                 pair.second.onViewAttachedToWindow(holder);
@@ -248,7 +301,7 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
     public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
         super.onViewDetachedFromWindow(holder);
         int position = holder.getPosition();
-        if (position >= 0) {
+        if (position >= 0 && !(holder instanceof PlaceholderViewHolder)) {
             Pair<AdapterDataObserver, Adapter> pair = findAdapterByPosition(position);
             if (pair != null) {
                 pair.second.onViewDetachedFromWindow(holder);
@@ -281,6 +334,9 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
 
         Pair<AdapterDataObserver, Adapter> pair;
         for (Adapter adapter : adapters) {
+            if (adapter instanceof LazyAdapter && ((LazyAdapter) adapter).isMaterialized()) {
+                adapter = ((LazyAdapter) adapter).getAdapter();
+            }
             // every adapter has an unique index id
             AdapterDataObserver observer = new AdapterDataObserver(mTotal, mIndexGen == null ? mIndex++ : mIndexGen.incrementAndGet());
             adapter.registerAdapterDataObserver(observer);
@@ -385,6 +441,9 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         List<LayoutHelper> helpers = new LinkedList<>(super.getLayoutHelpers());
         for (int i = 0, size = targetAdapters.size(); i < size; i++) {
             Adapter one = targetAdapters.get(i);
+            if (one instanceof LazyAdapter && ((LazyAdapter) one).isMaterialized()) {
+                one = ((LazyAdapter) one).getAdapter();
+            }
             Iterator<Pair<AdapterDataObserver, Adapter>> itr = mAdapters.iterator();
             while (itr.hasNext()) {
                 Pair<AdapterDataObserver, Adapter> pair = itr.next();
@@ -410,6 +469,7 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
     }
 
     public void clear() {
+        mUpdateGeneration++;
         mTotal = 0;
         mIndex = 0;
         if (mIndexGen != null) {
@@ -427,6 +487,276 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         mIndexAry.clear();
     }
 
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(mLazyScrollListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(mLazyScrollListener);
+        recyclerView.removeCallbacks(mMaterializeRunnable);
+        mMaterializePending = false;
+        mRecyclerView = null;
+    }
+
+    /**
+     * Set how many items outside the visible range are checked when materializing {@link LazyAdapter}s, default is 0
+     *
+     * @param itemDistance distance in adapter positions
+     */
+    public void setLazyMaterializeDistance(int itemDistance) {
+        if (itemDistance < 0) {
+            throw new IllegalArgumentException("itemDistance must not be negative, but is " + itemDistance);
+        }
+        mLazyMaterializeDistance = itemDistance;
+    }
+
+    public int getLazyMaterializeDistance() {
+        return mLazyMaterializeDistance;
+    }
+
+    private void requestMaterialize() {
+        if (mRecyclerView == null || mMaterializePending) {
+            return;
+        }
+        // adapter can not be changed in the middle of layout or scroll callbacks
+        mMaterializePending = true;
+        mRecyclerView.post(mMaterializeRunnable);
+    }
+
+    private void materializeNearViewport() {
+        final int first = mLayoutManager.findFirstVisibleItemPosition();
+        final int last = mLayoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        final int lower = first - mLazyMaterializeDistance;
+        final int upper = last + mLazyMaterializeDistance;
+        for (int i = 0; i < mAdapters.size(); i++) {
+            Pair<AdapterDataObserver, Adapter> pair = mAdapters.get(i);
+            final int start = pair.first.mStartPosition;
+            if (start > upper) {
+                break;
+            }
+
+            if (pair.second instanceof LazyAdapter && start + pair.second.getItemCount() - 1 >= lower) {
+                materializeAdapter(i);
+            }
+        }
+    }
+
+    /**
+     * Replace the {@link LazyAdapter} at <code>adapterIndex</code> with its real adapter and LayoutHelper
+     */
+    @SuppressWarnings("unchecked")
+    private void materializeAdapter(int adapterIndex) {
+        Pair<AdapterDataObserver, Adapter> old = mAdapters.get(adapterIndex);
+        LazyAdapter lazyAdapter = (LazyAdapter) old.second;
+        Adapter adapter = lazyAdapter.materialize();
+        final int startPosition = old.first.mStartPosition;
+        final int oldCount = lazyAdapter.getItemCount();
+
+        mUpdateGeneration++;
+        lazyAdapter.unregisterAdapterDataObserver(old.first);
+        AdapterDataObserver observer = new AdapterDataObserver(startPosition, mIndexGen == null ? mIndex++ : mIndexGen.incrementAndGet());
+        adapter.registerAdapterDataObserver(observer);
+        LayoutHelper helper = adapter.onCreateLayoutHelper();
+        helper.setItemCount(adapter.getItemCount());
+
+        Pair<AdapterDataObserver, Adapter> pair = Pair.create(observer, adapter);
+        mAdapters.set(adapterIndex, pair);
+        mIndexAry.remove(old.first.mIndex);
+        mIndexAry.put(observer.mIndex, pair);
+
+        List<LayoutHelper> helpers = new LinkedList<>(getLayoutHelpers());
+        helpers.set(adapterIndex, helper);
+        mTotal = startPosition;
+        for (int i = adapterIndex; i < mAdapters.size(); i++) {
+            Pair<AdapterDataObserver, Adapter> p = mAdapters.get(i);
+            p.first.mStartPosition = mTotal;
+            mTotal += p.second.getItemCount();
+        }
+        super.setLayoutHelpers(helpers);
+
+        final int newCount = helper.getItemCount();
+        final int changed = Math.min(oldCount, newCount);
+        if (changed > 0) {
+            notifyItemRangeChanged(startPosition, changed);
+        }
+        if (newCount > oldCount) {
+            notifyItemRangeInserted(startPosition + oldCount, newCount - oldCount);
+        } else if (oldCount > newCount) {
+            notifyItemRangeRemoved(startPosition + newCount, oldCount - newCount);
+        }
+    }
+
+    /**
+     * Replace sub adapters and the data of {@link DiffAdapter}s, diffing is done on <code>executor</code> and the result is
+     * applied on main thread with a single update of LayoutHelpers. Lists passed in must not be modified afterwards.
+     * If adapters are changed in any other way before the result arrives, the result is dropped.
+     *
+     * @param entries  new adapters in order, each with the new data for a {@link DiffAdapter}, or null to keep data as is
+     * @param executor executor to compute diff on
+     */
+    @SuppressWarnings("unchecked")
+    public void updateAdaptersAsync(@NonNull List<Pair<Adapter, List<?>>> entries, @NonNull Executor executor) {
+        if (entries == null || executor == null) {
+            throw new IllegalArgumentException("entries and executor should not be null!");
+        }
+
+        final int oldSize = mAdapters.size();
+        Adapter[] oldAdapters = new Adapter[oldSize];
+        List[] oldData = new List[oldSize];
+        for (int i = 0; i < oldSize; i++) {
+            Adapter adapter = mAdapters.get(i).second;
+            oldAdapters[i] = adapter;
+            oldData[i] = adapter instanceof DiffAdapter ? ((DiffAdapter) adapter).getData() : null;
+        }
+
+        final int newSize = entries.size();
+        Adapter[] newAdapters = new Adapter[newSize];
+        List[] newData = new List[newSize];
+        for (int j = 0; j < newSize; j++) {
+            Pair<Adapter, List<?>> entry = entries.get(j);
+            Adapter adapter = entry.first;
+            if (adapter instanceof LazyAdapter && ((LazyAdapter) adapter).isMaterialized()) {
+                adapter = ((LazyAdapter) adapter).getAdapter();
+            }
+            if (entry.second != null && !(adapter instanceof DiffAdapter)) {
+                throw new IllegalArgumentException("data can only be supplied for DiffAdapter");
+            }
+            newAdapters[j] = adapter;
+            newData[j] = entry.second != null || !(adapter instanceof DiffAdapter)
+                    ? entry.second : ((DiffAdapter) adapter).getData();
+        }
+
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        final Handler handler = mMainHandler;
+        final AdapterDiff diff = new AdapterDiff(++mUpdateGeneration, oldAdapters, oldData, newAdapters, newData);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                diff.compute();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyDiff(diff);
+                    }
+                });
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyDiff(AdapterDiff diff) {
+        if (diff.mGeneration != mUpdateGeneration) {
+            // adapters changed after the diff was started
+            return;
+        }
+        mUpdateGeneration++;
+
+        // data of DiffAdapters may have been set directly in the meantime
+        boolean rangeUpdate = !diff.mReordered;
+        final int oldSize = diff.mOldAdapters.length;
+        for (int i = 0; i < oldSize && rangeUpdate; i++) {
+            Adapter adapter = diff.mOldAdapters[i];
+            if (adapter instanceof DiffAdapter && ((DiffAdapter) adapter).getData() != diff.mOldData[i]) {
+                rangeUpdate = false;
+            }
+        }
+
+        List<LayoutHelper> oldHelpers = getLayoutHelpers();
+        List<Pair<AdapterDataObserver, Adapter>> oldPairs = new ArrayList<>(mAdapters);
+        int[] oldCounts = new int[oldSize];
+        for (int i = 0; i < oldSize; i++) {
+            oldCounts[i] = oldPairs.get(i).second.getItemCount();
+            if (!diff.mKept[i]) {
+                oldPairs.get(i).second.unregisterAdapterDataObserver(oldPairs.get(i).first);
+            }
+        }
+
+        final int newSize = diff.mNewAdapters.length;
+        List<LayoutHelper> helpers = new LinkedList<>();
+        mAdapters.clear();
+        mIndexAry.clear();
+        mItemTypeAry.clear();
+        mTotal = 0;
+        for (int j = 0; j < newSize; j++) {
+            Adapter adapter = diff.mNewAdapters[j];
+            final int oldIndex = diff.mOldIndices[j];
+            Pair<AdapterDataObserver, Adapter> pair;
+            LayoutHelper helper;
+            if (oldIndex >= 0) {
+                pair = oldPairs.get(oldIndex);
+                helper = oldHelpers.get(oldIndex);
+                pair.first.mStartPosition = mTotal;
+            } else {
+                AdapterDataObserver observer = new AdapterDataObserver(mTotal, mIndexGen == null ? mIndex++ : mIndexGen.incrementAndGet());
+                adapter.registerAdapterDataObserver(observer);
+                pair = Pair.create(observer, adapter);
+                helper = adapter.onCreateLayoutHelper();
+            }
+
+            if (adapter instanceof DiffAdapter) {
+                ((DiffAdapter) adapter).mData = diff.mNewData[j];
+            }
+            helper.setItemCount(adapter.getItemCount());
+            mTotal += helper.getItemCount();
+            helpers.add(helper);
+            mIndexAry.put(pair.first.mIndex, pair);
+            mAdapters.add(pair);
+        }
+        super.setLayoutHelpers(helpers);
+
+        if (!rangeUpdate) {
+            notifyDataSetChanged();
+            return;
+        }
+
+        // kept adapters are in the same relative order, walk old and new sections together
+        int position = 0;
+        int i = 0, j = 0;
+        while (i < oldSize || j < newSize) {
+            if (i < oldSize && !diff.mKept[i]) {
+                if (oldCounts[i] > 0) {
+                    notifyItemRangeRemoved(position, oldCounts[i]);
+                }
+                i++;
+            } else if (j < newSize && diff.mOldIndices[j] < 0) {
+                final int count = diff.mNewAdapters[j].getItemCount();
+                if (count > 0) {
+                    notifyItemRangeInserted(position, count);
+                }
+                position += count;
+                j++;
+            } else {
+                int[] range = diff.mItemRanges[j];
+                if (range != null) {
+                    final int from = position + range[0];
+                    final int changed = Math.min(range[1], range[2]);
+                    if (changed > 0) {
+                        notifyItemRangeChanged(from, changed);
+                    }
+                    if (range[2] > range[1]) {
+                        notifyItemRangeInserted(from + changed, range[2] - range[1]);
+                    } else if (range[1] > range[2]) {
+                        notifyItemRangeRemoved(from + changed, range[1] - range[2]);
+                    }
+                }
+                position += diff.mNewAdapters[j].getItemCount();
+                i++;
+                j++;
+            }
+        }
+    }
+
     public int getAdaptersCount() {
         return mAdapters == null ? 0 : mAdapters.size();
     }
@@ -619,6 +949,13 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         }
     }
 
+    static class PlaceholderViewHolder extends RecyclerView.ViewHolder {
+
+        public PlaceholderViewHolder(View view) {
+            super(view);
+        }
+    }
+
     static class SimpleViewAdapter extends Adapter<RecyclerView.ViewHolder> {
 
         private View mView;
@@ -668,4 +1005,127 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         }
     }
 
+    /**
+     * Sub adapter backed by an immutable list, which can be updated through {@link DelegateAdapter#updateAdaptersAsync}
+     */
+    public static abstract class DiffAdapter<T, VH extends RecyclerView.ViewHolder> extends Adapter<VH> {
+
+        @NonNull
+        List<T> mData = Collections.emptyList();
+
+        @NonNull
+        public List<T> getData() {
+            return mData;
+        }
+
+        /**
+         * Replace data synchronously, the list must not be modified afterwards
+         */
+        public void setData(@Nullable List<T> data) {
+            mData = data == null ? Collections.<T>emptyList() : data;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getItemCount() {
+            return mData.size();
+        }
+
+        /**
+         * Called on background thread, whether two items represent the same entity
+         */
+        public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * Called on background thread, only for items that are the same, whether their content is unchanged
+         */
+        public boolean areContentsTheSame(T oldItem, T newItem) {
+            return oldItem == null ? newItem == null : oldItem.equals(newItem);
+        }
+    }
+
+    /**
+     * Sub adapter that only declares an estimated item count and extent, empty placeholders are laid out for it until it
+     * comes near the viewport, then {@link #onCreateAdapter()} is called and the real adapter replaces it.
+     * Placeholders are sized along the vertical axis.
+     */
+    public static abstract class LazyAdapter extends Adapter<RecyclerView.ViewHolder> {
+
+        private final int mEstimatedItemCount;
+
+        private final int mEstimatedItemExtent;
+
+        @Nullable
+        private Adapter mAdapter;
+
+        /**
+         * @param estimatedItemCount  number of placeholders before materialized
+         * @param estimatedItemExtent height of each placeholder in pixels
+         */
+        public LazyAdapter(int estimatedItemCount, int estimatedItemExtent) {
+            if (estimatedItemCount < 0 || estimatedItemExtent < 0) {
+                throw new IllegalArgumentException("estimated count and extent must not be negative");
+            }
+            mEstimatedItemCount = estimatedItemCount;
+            mEstimatedItemExtent = estimatedItemExtent;
+        }
+
+        /**
+         * Create the real adapter, called at most once on main thread
+         */
+        @NonNull
+        protected abstract Adapter onCreateAdapter();
+
+        public final boolean isMaterialized() {
+            return mAdapter != null;
+        }
+
+        @Nullable
+        public final Adapter getAdapter() {
+            return mAdapter;
+        }
+
+        @NonNull
+        final Adapter materialize() {
+            if (mAdapter == null) {
+                mAdapter = onCreateAdapter();
+                if (mAdapter == null) {
+                    throw new IllegalStateException("onCreateAdapter() should not return null");
+                }
+            }
+            return mAdapter;
+        }
+
+        public int getEstimatedItemExtent() {
+            return mEstimatedItemExtent;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return new LinearLayoutHelper();
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new PlaceholderViewHolder(new View(parent.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
+            if (lp == null) {
+                holder.itemView.setLayoutParams(new VirtualLayoutManager.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, mEstimatedItemExtent));
+            } else if (lp.height != mEstimatedItemExtent) {
+                lp.height = mEstimatedItemExtent;
+                holder.itemView.setLayoutParams(lp);
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return mEstimatedItemCount;
+        }
+    }
+
 }
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last few views recycled from each edge attached to nothing but still bound, so scrolling back in the other
+ * direction gets them by position without binding again. Views evicted or cleared are recycled through the recycler,
+ * views made stale by data changes go to the pool directly. An extension set by
+ * {@link VirtualLayoutManager#setViewCacheExtension} is asked for views this cache misses.
+ */
+final class DetachedViewCache extends RecyclerView.ViewCacheExtension {
+
+    static final String CACHE_NAME = "detached";
+
+    private final VirtualLayoutManager mLayoutManager;
+
+    private View[] mStartViews = new View[0];
+
+    private int mStartCount = 0;
+
+    private View[] mEndViews = new View[0];
+
+    private int mEndCount = 0;
+
+    private int mSize = 0;
+
+    /**
+     * extension installed by the app, asked for views this cache does not keep
+     */
+    private RecyclerView.ViewCacheExtension mDelegate;
+
+    /**
+     * views cleared while no recycler was at hand, recycled on the next {@link #recyclePending}
+     */
+    private final List<View> mPendingViews = new ArrayList<>();
+
+    DetachedViewCache(VirtualLayoutManager layoutManager) {
+        this.mLayoutManager = layoutManager;
+    }
+
+    void setDelegate(RecyclerView.ViewCacheExtension delegate) {
+        this.mDelegate = delegate;
+    }
+
+    int getSize() {
+        return mSize;
+    }
+
+    void setSize(int size) {
+        if (size == mSize) {
+            return;
+        }
+        clear();
+        mSize = size;
+        mStartViews = new View[size];
+        mEndViews = new View[size];
+    }
+
+    /**
+     * Keep a view removed from parent, the oldest one on the same edge is recycled if full
+     *
+     * @param view      removed view, still bound
+     * @param fromStart whether it is recycled from start edge
+     * @param recycler  recycler to take the evicted view
+     */
+    void put(View view, boolean fromStart, RecyclerView.Recycler recycler) {
+        recyclePending(recycler);
+        final View[] views = fromStart ? mStartViews : mEndViews;
+        int count = fromStart ? mStartCount : mEndCount;
+        if (count == mSize) {
+            recycler.recycleView(views[0]);
+            System.arraycopy(views, 1, views, 0, count - 1);
+            count--;
+        }
+        views[count++] = view;
+        if (fromStart) {
+            mStartCount = count;
+        } else {
+            mEndCount = count;
+        }
+    }
+
+    @Override
+    public View getViewForPositionAndType(RecyclerView.Recycler recycler, int position, int type) {
+        View view = take(mStartViews, true, position, type);
+        if (view == null) {
+            view = take(mEndViews, false, position, type);
+        }
+        if (mLayoutManager.getPerformanceMonitor() != null) {
+            mLayoutManager.getPerformanceMonitor().recordCacheLookup(CACHE_NAME, view != null);
+        }
+        if (view == null && mDelegate != null) {
+            view = mDelegate.getViewForPositionAndType(recycler, position, type);
+        }
+        return view;
+    }
+
+    private View take(View[] views, boolean fromStart, int position, int type) {
+        final int count = fromStart ? mStartCount : mEndCount;
+        // most recent ones are at the tail
+        for (int i = count - 1; i >= 0; i--) {
+            View view = views[i];
+            RecyclerView.ViewHolder holder = mLayoutManager.getChildViewHolder(view);
+            if (holder != null && holder.getLayoutPosition() == position && holder.getItemViewType() == type) {
+                System.arraycopy(views, i + 1, views, i, count - i - 1);
+                views[count - 1] = null;
+                if (fromStart) {
+                    mStartCount--;
+                } else {
+                    mEndCount--;
+                }
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop handing out kept views, they are still valid for their positions and are recycled through the recycler on the
+     * next {@link #recyclePending}, so adapter and RecyclerListener are notified as usual
+     */
+    void clear() {
+        for (int i = 0; i < mStartCount; i++) {
+            mPendingViews.add(mStartViews[i]);
+            mStartViews[i] = null;
+        }
+        for (int i = 0; i < mEndCount; i++) {
+            mPendingViews.add(mEndViews[i]);
+            mEndViews[i] = null;
+        }
+        mStartCount = 0;
+        mEndCount = 0;
+    }
+
+    /**
+     * Recycle views cleared by {@link #clear()}
+     */
+    void recyclePending(RecyclerView.Recycler recycler) {
+        for (int i = 0, size = mPendingViews.size(); i < size; i++) {
+            recycler.recycleView(mPendingViews.get(i));
+        }
+        mPendingViews.clear();
+    }
+
+    /**
+     * Drop all kept views, must be called once positions or data of items change. Their positions are stale, recycling
+     * them through the recycler would put them into RecyclerView's view cache and reuse them for wrong items, so the
+     * listener and adapter are notified directly instead.
+     *
+     * @param adapter adapter that bound the views
+     * @param toPool  whether views go to the pool, false if the adapter is replaced
+     */
+    void invalidate(RecyclerView.Adapter adapter, boolean toPool) {
+        clear();
+        for (int i = 0, size = mPendingViews.size(); i < size; i++) {
+            mLayoutManager.dropDetachedView(mPendingViews.get(i), adapter, toPool);
+        }
+        mPendingViews.clear();
+    }
+}
@@ -378,7 +378,7 @@ class ExposeLinearLayoutManagerEx extends LinearLayoutManager {
         // changes may cause gaps on the UI, try to fix them.
         // TODO we can probably avoid this if neither stackFromEnd/reverseLayout/RTL values have
         // changed
-        if (getChildCount() > 0) {
+        if (getChildCount() > 0 && isFixLayoutGapEnabled()) {
             // because layout from end may be changed by scroll to position
             // we re-calculate it.
             // find which side we should check for gaps.
@@ -411,6 +411,13 @@ class ExposeLinearLayoutManagerEx extends LinearLayoutManager {
         }
     }
 
+    /**
+     * Whether gaps at start and end are closed after filling, subclasses that only fill part of the space can disable it
+     */
+    protected boolean isFixLayoutGapEnabled() {
+        return true;
+    }
+
     /**
      * Method called when Anchor position is decided. Extending class can setup accordingly or
      * even update anchor info if necessary.
@@ -54,7 +54,14 @@ public abstract class LayoutHelper {
     /**
      * Range for this layoutHelper, intialize with EMPTY
      */
-    @NonNull
+    int mRangeStart = -1;
+
+    int mRangeEnd = -1;
+
+    /**
+     * Boxed view of [{@link #mRangeStart}, {@link #mRangeEnd}], created lazily by {@link #getRange()}
+     */
+    @Nullable
     Range<Integer> mRange = RANGE_EMPTY;
 
     int mZIndex = 0;
@@ -67,7 +74,7 @@ public abstract class LayoutHelper {
      * @return true if position in range returned by {@link #getRange()}
      */
     public boolean isOutOfRange(int position) {
-        return !mRange.contains(position);
+        return position < mRangeStart || position > mRangeEnd;
     }
 
 
@@ -86,21 +93,25 @@ public abstract class LayoutHelper {
         }
 
         if (start == -1 && end == -1) {
+            this.mRangeStart = -1;
+            this.mRangeEnd = -1;
             this.mRange = RANGE_EMPTY;
             onRangeChange(start, end);
             return;
         }
 
         if ((end - start + 1) != getItemCount()) {
-            throw new MismatchChildCountException("ItemCount mismatch when range: " + mRange.toString() + " childCount: " + getItemCount());
+            throw new MismatchChildCountException("ItemCount mismatch when range: " + getRange().toString() + " childCount: " + getItemCount());
         }
 
-        if (start == mRange.getUpper() && end == mRange.getLower()) {
+        if (start == mRangeEnd && end == mRangeStart) {
             // no change
             return;
         }
 
-        this.mRange = Range.create(start, end);
+        this.mRangeStart = start;
+        this.mRangeEnd = end;
+        this.mRange = null;
         onRangeChange(start, end);
     }
 
@@ -115,15 +126,36 @@ public abstract class LayoutHelper {
     }
 
     /**
-     * Return current range
+     * Return current range, prefer {@link #getRangeStart()} and {@link #getRangeEnd()} in layout code
      *
      * @return Range of integer
      */
     @NonNull
     public final Range<Integer> getRange() {
+        if (mRange == null) {
+            mRange = Range.create(mRangeStart, mRangeEnd);
+        }
         return mRange;
     }
 
+    /**
+     * Return the first position handled by this layoutHelper, -1 if range is empty
+     *
+     * @return start position of current range
+     */
+    public final int getRangeStart() {
+        return mRangeStart;
+    }
+
+    /**
+     * Return the last position handled by this layoutHelper, -1 if range is empty
+     *
+     * @return end position of current range
+     */
+    public final int getRangeEnd() {
+        return mRangeEnd;
+    }
+
 
     /**
      * Given a chance to check and change the chosen anchorInfo
@@ -186,6 +218,60 @@ public abstract class LayoutHelper {
         this.mZIndex = zIndex;
     }
 
+    int mEstimatedItemExtent = 0;
+
+    /**
+     * Set the estimated extent of one item in main orientation, used before items are measured, for example by
+     * {@link VirtualLayoutManager#setVirtualNestedScrolling(boolean, int)}. For grids, use the row extent divided by span count.
+     *
+     * @param extent extent in pixels, 0 to use the default one of LayoutManager
+     */
+    public void setEstimatedItemExtent(int extent) {
+        if (extent < 0) {
+            throw new IllegalArgumentException("extent must not be negative, but is " + extent);
+        }
+        this.mEstimatedItemExtent = extent;
+    }
+
+    public int getEstimatedItemExtent() {
+        return mEstimatedItemExtent;
+    }
+
+    int mEndLookahead = -1;
+
+    boolean mEndLookaheadInPixels = false;
+
+    /**
+     * Item count of this helper when its end was last approached, ranges shift when earlier helpers grow so the count
+     * tells whether this helper itself grew
+     */
+    int mApproachedItemCount = -1;
+
+    /**
+     * Whether {@link VirtualLayoutManager.OnApproachEndListener} is still to be notified for this helper
+     */
+    boolean mApproachPending = false;
+
+    /**
+     * Set how early {@link VirtualLayoutManager.OnApproachEndListener} is notified before the end of this helper scrolls into screen
+     *
+     * @param distance distance from the end of screen to the last item of this helper, negative to disable
+     * @param inPixels whether distance is in pixels, otherwise in items
+     */
+    public void setEndLookahead(int distance, boolean inPixels) {
+        this.mEndLookahead = distance;
+        this.mEndLookaheadInPixels = inPixels;
+        this.mApproachedItemCount = -1;
+    }
+
+    public int getEndLookahead() {
+        return mEndLookahead;
+    }
+
+    public boolean isEndLookaheadInPixels() {
+        return mEndLookaheadInPixels;
+    }
+
     /**
      * Get View that fixed in some position
      *
@@ -224,6 +310,50 @@ public abstract class LayoutHelper {
         return true;
     }
 
+    /**
+     * All children of the run can be recycled, returned by {@link #checkRangeRecyclable}
+     */
+    public static final int RECYCLE_ALL = 0;
+
+    /**
+     * No child of the run can be recycled, returned by {@link #checkRangeRecyclable}
+     */
+    public static final int RECYCLE_NONE = 1;
+
+    /**
+     * Ask {@link #isRecyclable} for each child of the run, returned by {@link #checkRangeRecyclable}
+     */
+    public static final int RECYCLE_EACH = 2;
+
+    /**
+     * Batch version of {@link #isRecyclable}, called once for a run of children handled by this layoutHelper which will be recycled.
+     * Overrides answering without {@link #isRecyclable} should return {@link #RECYCLE_EACH} unless
+     * {@link #isRangeRecyclable()} is true
+     *
+     * @param fromPos   position of the first child in the run, in recycling order
+     * @param toPos     position of the last child in the run, in recycling order
+     * @param startPos  start position of children will be recycled
+     * @param endPos    end position of children will be recycled
+     * @param helper    a helper of type {@link LayoutManagerHelper}
+     * @param fromStart whether is recycleChildren from start
+     * @return one of {@link #RECYCLE_ALL}, {@link #RECYCLE_NONE} and {@link #RECYCLE_EACH}
+     */
+    public int checkRangeRecyclable(int fromPos, int toPos, int startPos, int endPos, LayoutManagerHelper helper, boolean fromStart) {
+        return RECYCLE_EACH;
+    }
+
+    /**
+     * Opt-in for {@link #checkRangeRecyclable} to answer for whole runs of children. Helpers returning true here
+     * override {@link #checkRangeRecyclable} with the batch equivalent of their {@link #isRecyclable}; a subclass
+     * overriding {@link #isRecyclable} of such a helper must override this to return false, so that it is asked for
+     * each child again.
+     *
+     * @return false by default
+     */
+    protected boolean isRangeRecyclable() {
+        return false;
+    }
+
     /**
      * Return children count
      *
@@ -282,6 +412,17 @@ public abstract class LayoutHelper {
 
     }
 
+    /**
+     * Called when items are added, removed, updated or moved, only items after <code>positionStart</code> are affected.
+     * By default it falls back to {@link #onItemsChanged(LayoutManagerHelper)}.
+     *
+     * @param positionStart the first position affected by this change
+     * @param helper        LayoutManagerHelper
+     */
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        onItemsChanged(helper);
+    }
+
     /**
      * Called when this layoutHelper will be removed from LayoutManager, please release views and other resources here
      *
@@ -28,9 +28,15 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.List;
+import java.util.ListIterator;
 
 /**
  * LayoutHelperFinder provides as repository of LayoutHelpers
+ * <p>
+ * VirtualLayoutManager walks layoutHelpers with {@link #size()} and {@link #get(int)} in every layout and scroll pass.
+ * The default implementations go through {@link #getLayoutHelpers()}, which is only cheap when that list is
+ * {@link java.util.RandomAccess}; custom finders backed by other lists, e.g. LinkedList, must override both with
+ * constant time versions.
  */
 public abstract class LayoutHelperFinder {
 
@@ -63,4 +69,57 @@ public abstract class LayoutHelperFinder {
      */
     protected abstract List<LayoutHelper> reverse();
 
+    /**
+     * Visitor for {@link #forEach(LayoutHelperVisitor)}, keep one instance and pass arguments through its fields
+     * so that visiting does not allocate
+     */
+    public interface LayoutHelperVisitor {
+        void visit(int index, LayoutHelper helper);
+    }
+
+    /**
+     * @return count of layoutHelpers
+     */
+    public int size() {
+        return getLayoutHelpers().size();
+    }
+
+    /**
+     * Get layoutHelper at <code>index</code> in the order they are set, override it if {@link #getLayoutHelpers()} is
+     * not {@link java.util.RandomAccess}
+     */
+    @NonNull
+    public LayoutHelper get(int index) {
+        return getLayoutHelpers().get(index);
+    }
+
+    /**
+     * @return index of <code>helper</code>, or -1 if it is not in this finder
+     */
+    public int indexOf(@Nullable LayoutHelper helper) {
+        return getLayoutHelpers().indexOf(helper);
+    }
+
+    /**
+     * Visit layoutHelpers in the order they are set
+     */
+    public void forEach(@NonNull LayoutHelperVisitor visitor) {
+        int i = 0;
+        for (LayoutHelper helper : getLayoutHelpers()) {
+            visitor.visit(i++, helper);
+        }
+    }
+
+    /**
+     * Visit layoutHelpers in reverse order
+     */
+    public void forEachReverse(@NonNull LayoutHelperVisitor visitor) {
+        List<LayoutHelper> helpers = getLayoutHelpers();
+        ListIterator<LayoutHelper> iterator = helpers.listIterator(helpers.size());
+        while (iterator.hasPrevious()) {
+            final int index = iterator.previousIndex();
+            visitor.visit(index, iterator.previous());
+        }
+    }
+
 }
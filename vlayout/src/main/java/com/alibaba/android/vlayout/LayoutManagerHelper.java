@@ -160,7 +160,7 @@ public interface LayoutManagerHelper {
     RecyclerView getRecyclerView();
 
     /**
-     * Find view via item position {@param position}
+     * Find view via item position {@param position}, views laid out by layoutHelpers are looked up in O(1)
      *
      * @param position Position of the item that view associated with
      * @return View that found, null if not.
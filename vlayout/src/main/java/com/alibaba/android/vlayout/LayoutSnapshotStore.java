@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores measured extents and span assignments of a page in a small binary file, so a cold start can estimate
+ * extents of items it has not laid out yet. Entries are keyed by stable item id, see
+ * {@link VirtualLayoutManager#setLayoutSnapshotStore(LayoutSnapshotStore, java.util.concurrent.Executor)}.
+ * <p>
+ * File format, big endian: magic, format version, layout version, chunk count, chunks of
+ * (first item id, item count, extent), span count, spans of (item id, span index).
+ */
+public class LayoutSnapshotStore {
+
+    private static final String TAG = "LayoutSnapshotStore";
+
+    private static final int MAGIC = 0x564C5953;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final int CHUNK_BYTES = 16;
+
+    private static final int SPAN_BYTES = 9;
+
+    private final File mFile;
+
+    private final int mLayoutVersion;
+
+    private final int mMaxEntries;
+
+    /**
+     * @param file          file to keep the snapshot in
+     * @param layoutVersion version of the page layout, a snapshot written with another version is ignored;
+     *                      bump it whenever item views change size
+     * @param maxEntries    max chunks and max spans kept, those closest to the start are preferred
+     */
+    public LayoutSnapshotStore(@NonNull File file, int layoutVersion, int maxEntries) {
+        if (file == null) {
+            throw new IllegalArgumentException("file should not be null!");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive, but is " + maxEntries);
+        }
+        mFile = file;
+        mLayoutVersion = layoutVersion;
+        mMaxEntries = maxEntries;
+    }
+
+    public int getMaxEntries() {
+        return mMaxEntries;
+    }
+
+    /**
+     * Read the snapshot, must not be called on main thread
+     *
+     * @return snapshot, or null if there is none, it is written by another version, or it is broken
+     */
+    @Nullable
+    public Snapshot read() {
+        if (!mFile.isFile()) {
+            return null;
+        }
+        final long maxLength = HEADER_BYTES + 4 + (long) mMaxEntries * (CHUNK_BYTES + SPAN_BYTES);
+        if (mFile.length() > maxLength) {
+            // written with a larger limit, do not trust it
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != mLayoutVersion) {
+                return null;
+            }
+
+            final int chunkCount = in.readInt();
+            if (chunkCount < 0 || chunkCount > mMaxEntries) {
+                return null;
+            }
+            Snapshot snapshot = new Snapshot(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                snapshot.mChunkIds[i] = in.readLong();
+                snapshot.mChunkItemCounts[i] = in.readInt();
+                snapshot.mChunkExtents[i] = in.readInt();
+            }
+
+            final int spanCount = in.readInt();
+            if (spanCount < 0 || spanCount > mMaxEntries) {
+                return null;
+            }
+            snapshot.ensureSpans(spanCount);
+            for (int i = 0; i < spanCount; i++) {
+                snapshot.mSpanIds[i] = in.readLong();
+                snapshot.mSpans[i] = in.readByte();
+            }
+            snapshot.mSpanCount = spanCount;
+            return snapshot;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read layout snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Write the snapshot to a temporary file and move it in place, must not be called on main thread
+     *
+     * @return whether it is written
+     */
+    public boolean write(@NonNull Snapshot snapshot) {
+        final int chunkCount = Math.min(snapshot.mChunkCount, mMaxEntries);
+        final int spanCount = Math.min(snapshot.mSpanCount, mMaxEntries);
+        File tmp = new File(mFile.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(mLayoutVersion);
+            out.writeInt(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                out.writeLong(snapshot.mChunkIds[i]);
+                out.writeInt(snapshot.mChunkItemCounts[i]);
+                out.writeInt(snapshot.mChunkExtents[i]);
+            }
+            out.writeInt(spanCount);
+            for (int i = 0; i < spanCount; i++) {
+                out.writeLong(snapshot.mSpanIds[i]);
+                out.writeByte(snapshot.mSpans[i]);
+            }
+            out.close();
+            out = null;
+            return tmp.renameTo(mFile);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write layout snapshot: " + e.getMessage());
+            return false;
+        } finally {
+            if (out != null) {
+                closeQuietly(out);
+                tmp.delete();
+            }
+        }
+    }
+
+    public void delete() {
+        mFile.delete();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Chunk extents and span assignments keyed by item id. A chunk is what one LayoutHelper consumed in one layout
+     * step, e.g. one row of a grid, identified by the id of its first item.
+     */
+    public static final class Snapshot {
+
+        long[] mChunkIds;
+
+        int[] mChunkItemCounts;
+
+        int[] mChunkExtents;
+
+        int mChunkCount;
+
+        long[] mSpanIds = new long[0];
+
+        byte[] mSpans = new byte[0];
+
+        int mSpanCount = 0;
+
+        Snapshot(int chunkCount) {
+            mChunkIds = new long[chunkCount];
+            mChunkItemCounts = new int[chunkCount];
+            mChunkExtents = new int[chunkCount];
+            mChunkCount = chunkCount;
+        }
+
+        void ensureSpans(int spanCount) {
+            if (mSpanIds.length < spanCount) {
+                mSpanIds = Arrays.copyOf(mSpanIds, spanCount);
+                mSpans = Arrays.copyOf(mSpans, spanCount);
+            }
+        }
+
+        public int getChunkCount() {
+            return mChunkCount;
+        }
+
+        public int getSpanCount() {
+            return mSpanCount;
+        }
+    }
+}
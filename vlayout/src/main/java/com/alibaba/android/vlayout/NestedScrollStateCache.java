@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout;
+
+import android.os.Parcelable;
+import android.support.v4.util.LruCache;
+import android.support.v4.view.ViewPager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Keeps scroll state of nested horizontal scrollers by item id, captured when their item is recycled and restored
+ * when the item is bound and added again, least recently used entries are evicted.
+ */
+final class NestedScrollStateCache {
+
+    private final LruCache<Long, Object> mStates;
+
+    NestedScrollStateCache(int maxEntries) {
+        mStates = new LruCache<>(maxEntries);
+    }
+
+    int getMaxEntries() {
+        return mStates.maxSize();
+    }
+
+    void capture(RecyclerView.ViewHolder holder) {
+        final long id = holder.getItemId();
+        if (id == RecyclerView.NO_ID) {
+            return;
+        }
+
+        View view = findNestedScrollView(holder);
+        Object state = null;
+        if (view instanceof RecyclerView) {
+            RecyclerView.LayoutManager layoutManager = ((RecyclerView) view).getLayoutManager();
+            if (layoutManager != null) {
+                state = layoutManager.onSaveInstanceState();
+            }
+        } else if (view instanceof ViewPager) {
+            state = ((ViewPager) view).getCurrentItem();
+        }
+
+        if (state != null) {
+            mStates.put(id, state);
+        }
+    }
+
+    void restore(RecyclerView.ViewHolder holder) {
+        final long id = holder.getItemId();
+        if (id == RecyclerView.NO_ID || mStates.size() == 0) {
+            return;
+        }
+
+        Object state = mStates.remove(id);
+        if (state == null) {
+            return;
+        }
+
+        View view = findNestedScrollView(holder);
+        if (view instanceof RecyclerView && state instanceof Parcelable) {
+            RecyclerView.LayoutManager layoutManager = ((RecyclerView) view).getLayoutManager();
+            if (layoutManager != null) {
+                // applied in its next layout, before anything is drawn at the wrong offset
+                layoutManager.onRestoreInstanceState((Parcelable) state);
+            }
+        } else if (view instanceof ViewPager && state instanceof Integer) {
+            ((ViewPager) view).setCurrentItem((Integer) state, false);
+        }
+    }
+
+    void clear() {
+        mStates.evictAll();
+    }
+
+    private static View findNestedScrollView(RecyclerView.ViewHolder holder) {
+        if (holder instanceof VirtualLayoutManager.NestedScrollStateHolder) {
+            return ((VirtualLayoutManager.NestedScrollStateHolder) holder).getNestedScrollView();
+        }
+        return holder.itemView;
+    }
+}
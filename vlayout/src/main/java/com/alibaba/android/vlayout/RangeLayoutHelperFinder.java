@@ -27,27 +27,29 @@ package com.alibaba.android.vlayout;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 
 /**
  * An implement of {@link LayoutHelperFinder} which finds layoutHelpers by position
  */
 public class RangeLayoutHelperFinder extends LayoutHelperFinder {
 
+    private static final LayoutHelper[] EMPTY_HELPERS = new LayoutHelper[0];
+
     @NonNull
-    private List<LayoutHelperItem> mLayoutHelperItems = new LinkedList<>();
+    private List<LayoutHelper> mLayoutHelpers = new ArrayList<>();
 
     @NonNull
-    private List<LayoutHelper> mLayoutHelpers = new LinkedList<>();
+    private List<LayoutHelper> mReverseLayoutHelpers = new ArrayList<>();
 
+    /**
+     * layoutHelpers in the order they are set, for indexed access without iterators
+     */
     @NonNull
-    private List<LayoutHelper> mReverseLayoutHelpers =new LinkedList<>();
+    private LayoutHelper[] mLayoutHelperArray = EMPTY_HELPERS;
 
     private LayoutHelperItem[] mSortedLayoutHelpers = null;
 
@@ -69,24 +71,20 @@ public class RangeLayoutHelperFinder extends LayoutHelperFinder {
      */
     @Override
     public void setLayouts(@Nullable List<LayoutHelper> layouts) {
+        // copied first, layouts may be the list returned by getLayoutHelpers()
+        mLayoutHelperArray = layouts == null ? EMPTY_HELPERS : layouts.toArray(new LayoutHelper[layouts.size()]);
         mLayoutHelpers.clear();
         mReverseLayoutHelpers.clear();
-        mLayoutHelperItems.clear();
+        mSortedLayoutHelpers = null;
         if (layouts != null) {
-            ListIterator<LayoutHelper> iterator = layouts.listIterator();
-            LayoutHelper helper = null;
-            while (iterator.hasNext()) {
-                helper = iterator.next();
-                mLayoutHelpers.add(helper);
-                mLayoutHelperItems.add(new LayoutHelperItem(helper));
-            }
-
-            while (iterator.hasPrevious()) {
-                mReverseLayoutHelpers.add(iterator.previous());
+            final int count = mLayoutHelperArray.length;
+            mSortedLayoutHelpers = new LayoutHelperItem[count];
+            for (int i = 0; i < count; i++) {
+                mLayoutHelpers.add(mLayoutHelperArray[i]);
+                mReverseLayoutHelpers.add(mLayoutHelperArray[count - 1 - i]);
+                mSortedLayoutHelpers[i] = new LayoutHelperItem(mLayoutHelperArray[i], i);
             }
 
-            // Collections.sort(mLayoutHelperItems, mLayoutHelperItemComparator);
-            mSortedLayoutHelpers = mLayoutHelperItems.toArray(new LayoutHelperItem[mLayoutHelperItems.size()]);
             Arrays.sort(mSortedLayoutHelpers, mLayoutHelperItemComparator);
         }
     }
@@ -97,9 +95,62 @@ public class RangeLayoutHelperFinder extends LayoutHelperFinder {
         return mLayoutHelpers;
     }
 
+    @Override
+    public int size() {
+        return mLayoutHelperArray.length;
+    }
+
+    @NonNull
+    @Override
+    public LayoutHelper get(int index) {
+        return mLayoutHelperArray[index];
+    }
+
+    @Override
+    public int indexOf(@Nullable LayoutHelper helper) {
+        if (helper == null) {
+            return -1;
+        }
+        if (helper.getRangeStart() >= 0) {
+            LayoutHelperItem item = findItem(helper.getRangeStart());
+            if (item != null && item.layoutHelper == helper) {
+                return item.index;
+            }
+        }
+        // empty helpers are not found by range
+        for (int i = 0, size = mLayoutHelperArray.length; i < size; i++) {
+            if (mLayoutHelperArray[i] == helper) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void forEach(@NonNull LayoutHelperVisitor visitor) {
+        final LayoutHelper[] helpers = mLayoutHelperArray;
+        for (int i = 0, size = helpers.length; i < size; i++) {
+            visitor.visit(i, helpers[i]);
+        }
+    }
+
+    @Override
+    public void forEachReverse(@NonNull LayoutHelperVisitor visitor) {
+        final LayoutHelper[] helpers = mLayoutHelperArray;
+        for (int i = helpers.length - 1; i >= 0; i--) {
+            visitor.visit(i, helpers[i]);
+        }
+    }
+
     @Nullable
     @Override
     public LayoutHelper getLayoutHelper(int position) {
+        LayoutHelperItem item = findItem(position);
+        return item == null ? null : item.layoutHelper;
+    }
+
+    @Nullable
+    private LayoutHelperItem findItem(int position) {
         if (mSortedLayoutHelpers == null || mSortedLayoutHelpers.length == 0) {
             return null;
         }
@@ -122,23 +173,29 @@ public class RangeLayoutHelperFinder extends LayoutHelperFinder {
             rs = null;
         }
 
-        return rs == null ? null : rs.layoutHelper;
+        return rs;
     }
 
     static class LayoutHelperItem {
 
-        LayoutHelperItem(LayoutHelper helper) {
+        LayoutHelperItem(LayoutHelper helper, int index) {
             this.layoutHelper = helper;
+            this.index = index;
         }
 
         LayoutHelper layoutHelper;
 
+        /**
+         * index in the order helpers are set
+         */
+        int index;
+
         public int getStartPosition() {
-            return layoutHelper.getRange().getLower();
+            return layoutHelper.getRangeStart();
         }
 
         public int getEndPosition() {
-            return layoutHelper.getRange().getUpper();
+            return layoutHelper.getRangeEnd();
         }
 
     }
@@ -34,21 +34,61 @@ import com.alibaba.android.vlayout.extend.InnerRecycledViewPool;
 
 /**
  * PagerAdapter which use RecycledPool, used for nested ViewPager.
+ * Pages destroyed recently are kept in a small cache keyed by {@link #getItemKey(int)}, and are added back
+ * without rebinding when the same item is instantiated again. The pool is used as is, so many adapters can share
+ * one pool and its per type limits; use {@link InnerRecycledViewPool} to get destroy callbacks on views.
  */
 public abstract class RecyclablePagerAdapter<VH extends RecyclerView.ViewHolder> extends PagerAdapter {
 
+    private static final int DEFAULT_PAGE_CACHE_SIZE = 2;
+
     private RecyclerView.Adapter<VH> mAdapter;
 
-    private InnerRecycledViewPool mRecycledViewPool;
+    private RecyclerView.RecycledViewPool mRecycledViewPool;
+
+    /**
+     * Recently destroyed pages, oldest first
+     */
+    private RecyclerView.ViewHolder[] mCachedHolders;
+
+    private int[] mCachedKeys;
+
+    /**
+     * Positions the cached pages were destroyed at, their ViewPager.LayoutParams still carry them
+     */
+    private int[] mCachedPositions;
+
+    private ViewGroup[] mCachedContainers;
+
+    private int mCachedCount = 0;
 
 
     public RecyclablePagerAdapter(RecyclerView.Adapter<VH> adapter, RecyclerView.RecycledViewPool pool) {
         this.mAdapter = adapter;
-        if (pool instanceof InnerRecycledViewPool) {
-            this.mRecycledViewPool = (InnerRecycledViewPool) pool;
-        } else {
-            this.mRecycledViewPool = new InnerRecycledViewPool(pool);
+        this.mRecycledViewPool = pool != null ? pool : new InnerRecycledViewPool();
+        setPageCacheSize(DEFAULT_PAGE_CACHE_SIZE);
+    }
+
+    /**
+     * Set how many destroyed pages are kept bound for re-instantiation, 0 to disable
+     */
+    public void setPageCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative, but is " + size);
         }
+        clearPageCache();
+        mCachedHolders = new RecyclerView.ViewHolder[size];
+        mCachedKeys = new int[size];
+        mCachedPositions = new int[size];
+        mCachedContainers = new ViewGroup[size];
+    }
+
+    /**
+     * Key identifying the content bound at <code>position</code>, pages with same key and view type are reused
+     * without rebinding. Override it for looping pagers, for example returning <code>position % realCount</code>.
+     */
+    public int getItemKey(int position) {
+        return position;
     }
 
     @Override
@@ -69,8 +109,23 @@ public abstract class RecyclablePagerAdapter<VH extends RecyclerView.ViewHolder>
     @Override
     public Object instantiateItem(ViewGroup container, int position) {
         int itemViewType = getItemViewType(position);
-        RecyclerView.ViewHolder holder = mRecycledViewPool.getRecycledView(itemViewType);
+        RecyclerView.ViewHolder holder;
+        int cacheIndex = findCachedHolder(container, getItemKey(position), itemViewType);
+        if (cacheIndex >= 0) {
+            // same item in the same container, bound data is still valid
+            holder = mCachedHolders[cacheIndex];
+            final boolean samePosition = mCachedPositions[cacheIndex] == position;
+            removeCachedAt(cacheIndex);
+            if (samePosition) {
+                container.addView(holder.itemView);
+            } else {
+                // ViewPager does not refresh position of populated layoutParams, stale ones break drawing order
+                container.addView(holder.itemView, newLayoutParams(holder.itemView));
+            }
+            return holder;
+        }
 
+        holder = mRecycledViewPool.getRecycledView(itemViewType);
         if (holder == null) {
             holder = mAdapter.createViewHolder(container, itemViewType);
         }
@@ -82,24 +137,91 @@ public abstract class RecyclablePagerAdapter<VH extends RecyclerView.ViewHolder>
         //while these attributes should be reset to default value during reused.
         //Considering ViewPager.LayoutParams has a few inner attributes which could not be modify outside, we provide a new instance here
 
-        ViewPager.LayoutParams layoutParams = new ViewPager.LayoutParams();
-        if (holder.itemView.getLayoutParams() != null) {
-            layoutParams.width = holder.itemView.getLayoutParams().width;
-            layoutParams.height = holder.itemView.getLayoutParams().height;
-        }
-
-        container.addView(holder.itemView, layoutParams);
+        container.addView(holder.itemView, newLayoutParams(holder.itemView));
 
         return holder;
     }
 
+    private ViewPager.LayoutParams newLayoutParams(View itemView) {
+        ViewPager.LayoutParams layoutParams = new ViewPager.LayoutParams();
+        if (itemView.getLayoutParams() != null) {
+            layoutParams.width = itemView.getLayoutParams().width;
+            layoutParams.height = itemView.getLayoutParams().height;
+        }
+        return layoutParams;
+    }
+
     @Override
     public void destroyItem(ViewGroup container, int position, Object object) {
         if (object instanceof RecyclerView.ViewHolder) {
             RecyclerView.ViewHolder holder = (RecyclerView.ViewHolder) object;
             container.removeView(holder.itemView);
+            cacheHolder(container, getItemKey(position), position, holder);
+        }
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        // bound data may be stale now
+        clearPageCache();
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * Put all cached pages back to pool
+     */
+    public void clearPageCache() {
+        for (int i = 0; i < mCachedCount; i++) {
+            mRecycledViewPool.putRecycledView(mCachedHolders[i]);
+            mCachedHolders[i] = null;
+            mCachedContainers[i] = null;
+        }
+        mCachedCount = 0;
+    }
+
+    /**
+     * @return index of the newest cached page matching the arguments, or -1 if there is none
+     */
+    private int findCachedHolder(ViewGroup container, int key, int itemViewType) {
+        for (int i = mCachedCount - 1; i >= 0; i--) {
+            if (mCachedKeys[i] == key && mCachedContainers[i] == container
+                    && mCachedHolders[i].getItemViewType() == itemViewType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void cacheHolder(ViewGroup container, int key, int position, RecyclerView.ViewHolder holder) {
+        final int capacity = mCachedHolders.length;
+        if (capacity == 0) {
             mRecycledViewPool.putRecycledView(holder);
+            return;
+        }
+
+        if (mCachedCount == capacity) {
+            // evict the oldest one
+            mRecycledViewPool.putRecycledView(mCachedHolders[0]);
+            removeCachedAt(0);
+        }
+        mCachedHolders[mCachedCount] = holder;
+        mCachedKeys[mCachedCount] = key;
+        mCachedPositions[mCachedCount] = position;
+        mCachedContainers[mCachedCount] = container;
+        mCachedCount++;
+    }
+
+    private void removeCachedAt(int index) {
+        final int moved = mCachedCount - index - 1;
+        if (moved > 0) {
+            System.arraycopy(mCachedHolders, index + 1, mCachedHolders, index, moved);
+            System.arraycopy(mCachedKeys, index + 1, mCachedKeys, index, moved);
+            System.arraycopy(mCachedPositions, index + 1, mCachedPositions, index, moved);
+            System.arraycopy(mCachedContainers, index + 1, mCachedContainers, index, moved);
         }
+        mCachedCount--;
+        mCachedHolders[mCachedCount] = null;
+        mCachedContainers[mCachedCount] = null;
     }
 
 
@@ -107,5 +229,3 @@ public abstract class RecyclablePagerAdapter<VH extends RecyclerView.ViewHolder>
 
     public abstract int getItemViewType(int position);
 }
-
-
@@ -27,6 +27,10 @@ package com.alibaba.android.vlayout;
 import android.content.Context;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcelable;
 import android.os.Trace;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -38,8 +42,10 @@ import android.util.Pair;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 
 import com.alibaba.android.vlayout.extend.LayoutManagerCanScrollListener;
+import com.alibaba.android.vlayout.extend.LayoutTrace;
 import com.alibaba.android.vlayout.extend.PerformanceMonitor;
 import com.alibaba.android.vlayout.extend.ViewLifeCycleHelper;
 import com.alibaba.android.vlayout.extend.ViewLifeCycleListener;
@@ -47,8 +53,11 @@ import com.alibaba.android.vlayout.layout.BaseLayoutHelper;
 import com.alibaba.android.vlayout.layout.DefaultLayoutHelper;
 import com.alibaba.android.vlayout.layout.FixAreaAdjuster;
 import com.alibaba.android.vlayout.layout.FixAreaLayoutHelper;
+import com.alibaba.android.vlayout.layout.SpanBuffers;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -56,6 +65,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -111,6 +121,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     private ViewLifeCycleHelper mViewLifeCycleHelper;
 
+    @Nullable
+    private OnApproachEndListener mOnApproachEndListener;
+
     private Comparator<Pair<Range<Integer>, Integer>> mRangeComparator = new Comparator<Pair<Range<Integer>, Integer>>() {
         @Override
         public int compare(Pair<Range<Integer>, Integer> a, Pair<Range<Integer>, Integer> b) {
@@ -157,8 +170,104 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         mPerformanceMonitor = performanceMonitor;
     }
 
+    @Nullable
+    public PerformanceMonitor getPerformanceMonitor() {
+        return mPerformanceMonitor;
+    }
+
+    @Nullable
+    private LayoutTrace mLayoutTrace;
+
+    /**
+     * Record layout inputs into <code>trace</code>, to be played back offline by
+     * {@link com.alibaba.android.vlayout.extend.LayoutTraceReplayer}. Current helpers are recorded at once.
+     *
+     * @param trace trace to record into, null to stop recording
+     */
+    public void setLayoutTrace(@Nullable LayoutTrace trace) {
+        mLayoutTrace = trace;
+        if (trace != null) {
+            trace.recordOrientation(getOrientation());
+            trace.recordHelpers(mHelperFinder.getLayoutHelpers());
+        }
+    }
+
+    @Nullable
+    public LayoutTrace getLayoutTrace() {
+        return mLayoutTrace;
+    }
+
+    private final DetachedViewCache mDetachedViewCache = new DetachedViewCache(this);
+
+    /**
+     * Keep the last <code>size</code> views recycled from each edge bound, so they are reused without binding when
+     * scrolling direction reverses. Hit rate is reported by {@link PerformanceMonitor#recordCacheLookup(String, boolean)}.
+     * It installs a {@link RecyclerView.ViewCacheExtension} on the RecyclerView, 0 disables it. While enabled, set
+     * your own extension and RecyclerListener by {@link #setViewCacheExtension} and {@link #setRecyclerListener}
+     * rather than on the RecyclerView, otherwise they replace the cache or miss views it drops.
+     *
+     * @param size number of views kept on each edge
+     */
+    public void setDetachedViewCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Cache size should not be negative. Provided " + size);
+        }
+        final boolean wasEnabled = mDetachedViewCache.getSize() > 0;
+        mDetachedViewCache.setSize(size);
+        if (mRecyclerView != null && wasEnabled != (size > 0)) {
+            mRecyclerView.setViewCacheExtension(getInstalledViewCacheExtension());
+        }
+    }
+
+    public int getDetachedViewCacheSize() {
+        return mDetachedViewCache.getSize();
+    }
+
+    @Nullable
+    private RecyclerView.ViewCacheExtension mViewCacheExtension;
+
+    @Nullable
+    private RecyclerView.RecyclerListener mRecyclerListener;
+
+    /**
+     * Set the app's ViewCacheExtension, it is installed on the RecyclerView when attached. With the detached view
+     * cache enabled it is chained behind the cache and asked for views the cache does not keep.
+     */
+    public void setViewCacheExtension(@Nullable RecyclerView.ViewCacheExtension extension) {
+        mViewCacheExtension = extension;
+        mDetachedViewCache.setDelegate(extension);
+        if (mRecyclerView != null) {
+            mRecyclerView.setViewCacheExtension(getInstalledViewCacheExtension());
+        }
+    }
+
+    /**
+     * Set the app's RecyclerListener, it is installed on the RecyclerView when attached and also notified of views
+     * the detached view cache releases without the recycler.
+     */
+    public void setRecyclerListener(@Nullable RecyclerView.RecyclerListener listener) {
+        mRecyclerListener = listener;
+        if (mRecyclerView != null) {
+            mRecyclerView.setRecyclerListener(listener);
+        }
+    }
+
+    private RecyclerView.ViewCacheExtension getInstalledViewCacheExtension() {
+        return mDetachedViewCache.getSize() > 0 ? mDetachedViewCache : mViewCacheExtension;
+    }
+
     public void setNoScrolling(boolean noScrolling) {
+        setNoScrolling(noScrolling, false);
+    }
+
+    /**
+     * @param noScrolling       whether lays out all items and measures to their full extent
+     * @param singlePassMeasure whether the full extent is computed by laying out items within onMeasure, instead of
+     *                          a layout pass followed by a posted relayout. Views created while measuring are reused by layout.
+     */
+    public void setNoScrolling(boolean noScrolling, boolean singlePassMeasure) {
         this.mNoScrolling = noScrolling;
+        this.mSinglePassMeasure = singlePassMeasure;
         mSpaceMeasured = false;
         mMeasuredFullSpace = 0;
         mSpaceMeasuring = false;
@@ -186,6 +295,187 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         mMeasuredFullSpace = 0;
     }
 
+    private boolean mVirtualNested = false;
+
+    private int mDefaultEstimatedItemExtent = 0;
+
+    /**
+     * Extent reported in last measure of virtual nested mode
+     */
+    private int mVirtualExtent = -1;
+
+    private boolean mVirtualWindowValid = false;
+
+    private int mVirtualWindowStart = 0;
+
+    private int mVirtualWindowEnd = 0;
+
+    /**
+     * Whether nothing is visible through parents, so nothing is laid out
+     */
+    private boolean mVirtualWindowEmpty = false;
+
+    private final Rect mVirtualVisibleRect = new Rect();
+
+    private final ViewTreeObserver.OnScrollChangedListener mVirtualScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            if (mRecyclerView == null || !mVirtualNested || mRecyclerView.isLayoutRequested()) {
+                return;
+            }
+
+            if (!computeVisibleRange(mVirtualVisibleRect)) {
+                // still off screen, children are already dropped
+                if (!mVirtualWindowValid || !mVirtualWindowEmpty) {
+                    mRecyclerView.requestLayout();
+                }
+                return;
+            }
+
+            // relayout only when the visible part leaves the window laid out last time
+            if (!mVirtualWindowValid || mVirtualWindowEmpty
+                    || getVisibleStart(mVirtualVisibleRect) < mVirtualWindowStart
+                    || getVisibleEnd(mVirtualVisibleRect) > mVirtualWindowEnd) {
+                mRecyclerView.requestLayout();
+            }
+        }
+    };
+
+    /**
+     * Virtual nested mode is for RecyclerView placed in a scrolling parent such as NestedScrollView. RecyclerView
+     * reports an estimated full extent, built from measured chunks and {@link LayoutHelper#setEstimatedItemExtent(int)},
+     * but only binds items in the part visible through its parents, which moves as the parent scrolls. The extent is
+     * refined as items get measured. It takes precedence over {@link #setNestedScrolling(boolean)} and {@link #setNoScrolling(boolean)}.
+     *
+     * @param virtualNested            whether to enable
+     * @param defaultEstimatedItemExtent extent of an item used for helpers without their own estimate
+     */
+    public void setVirtualNestedScrolling(boolean virtualNested, int defaultEstimatedItemExtent) {
+        if (defaultEstimatedItemExtent <= 0 && virtualNested) {
+            throw new IllegalArgumentException("defaultEstimatedItemExtent must be positive, but is " + defaultEstimatedItemExtent);
+        }
+        if (mRecyclerView != null && mVirtualNested != virtualNested) {
+            if (virtualNested) {
+                mRecyclerView.getViewTreeObserver().addOnScrollChangedListener(mVirtualScrollListener);
+            } else {
+                mRecyclerView.getViewTreeObserver().removeOnScrollChangedListener(mVirtualScrollListener);
+            }
+        }
+        this.mVirtualNested = virtualNested;
+        this.mDefaultEstimatedItemExtent = defaultEstimatedItemExtent;
+        mVirtualExtent = -1;
+        mVirtualWindowValid = false;
+        requestLayout();
+    }
+
+    public boolean isVirtualNestedScrolling() {
+        return mVirtualNested;
+    }
+
+    private boolean computeVisibleRange(Rect rect) {
+        return mRecyclerView != null && mRecyclerView.getLocalVisibleRect(rect);
+    }
+
+    private int getVisibleStart(Rect rect) {
+        return getOrientation() == VERTICAL ? rect.top : rect.left;
+    }
+
+    private int getVisibleEnd(Rect rect) {
+        return getOrientation() == VERTICAL ? rect.bottom : rect.right;
+    }
+
+    /**
+     * Estimate the extent of items in [from, to), using lengths recorded in layoutChunk and estimates for the rest
+     */
+    private int estimateExtent(int from, int to) {
+        if (to <= from || mHelperFinder == null) {
+            return 0;
+        }
+
+        final int chunkCount = mRangeLengths.size();
+        int chunkIdx = 0;
+        while (chunkIdx < chunkCount && mRangeLengths.get(chunkIdx).first.getLower() < from) {
+            chunkIdx++;
+        }
+
+        int extent = 0;
+        int averageExtent = -1;
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = mHelperFinder.get(i);
+            final int start = Math.max(from, layoutHelper.getRangeStart());
+            final int end = Math.min(to - 1, layoutHelper.getRangeEnd());
+            if (layoutHelper.getRangeStart() > to - 1) {
+                break;
+            }
+            if (start > end) {
+                continue;
+            }
+
+            int measured = 0;
+            while (chunkIdx < chunkCount) {
+                Pair<Range<Integer>, Integer> chunk = mRangeLengths.get(chunkIdx);
+                if (chunk.first.getLower() > end) {
+                    break;
+                }
+                if (chunk.first.getUpper() <= end) {
+                    extent += chunk.second;
+                    measured += chunk.first.getUpper() - chunk.first.getLower() + 1;
+                }
+                chunkIdx++;
+            }
+
+            int estimated = layoutHelper.mEstimatedItemExtent > 0
+                    ? layoutHelper.mEstimatedItemExtent : mDefaultEstimatedItemExtent;
+            if (estimated <= 0) {
+                if (averageExtent < 0) {
+                    averageExtent = averageMeasuredItemExtent();
+                }
+                estimated = averageExtent;
+            }
+            extent += Math.max(0, end - start + 1 - measured) * estimated;
+        }
+        return extent;
+    }
+
+    private int averageMeasuredItemExtent() {
+        long extent = 0;
+        int items = 0;
+        for (int i = 0, size = mRangeLengths.size(); i < size; i++) {
+            Pair<Range<Integer>, Integer> chunk = mRangeLengths.get(i);
+            extent += chunk.second;
+            items += chunk.first.getUpper() - chunk.first.getLower() + 1;
+        }
+        return items == 0 ? 0 : (int) (extent / items);
+    }
+
+    private int estimateVirtualExtent() {
+        final int padding = getOrientation() == VERTICAL
+                ? getPaddingTop() + getPaddingBottom() : getPaddingLeft() + getPaddingRight();
+        return padding + estimateExtent(0, getItemCount());
+    }
+
+    /**
+     * Find the last position whose estimated start is not after <code>offset</code>, offset is relative to start padding
+     */
+    private int findVirtualAnchorPosition(int offset) {
+        int s = 0, e = getItemCount() - 1, m;
+        while (s < e) {
+            m = (s + e + 1) / 2;
+            if (estimateExtent(0, m) <= offset) {
+                s = m;
+            } else {
+                e = m - 1;
+            }
+        }
+        return s;
+    }
+
+    @Override
+    protected boolean isFixLayoutGapEnabled() {
+        // only the visible window is filled, the rest is left empty on purpose
+        return !mVirtualNested;
+    }
+
     private LayoutHelperFinder mHelperFinder;
 
     public void setHelperFinder(@NonNull final LayoutHelperFinder finder) {
@@ -268,6 +558,10 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         }
 
         this.mHelperFinder.setLayouts(helpers);
+        applyPendingHelperStates();
+        if (mLayoutTrace != null) {
+            mLayoutTrace.recordHelpers(mHelperFinder.getLayoutHelpers());
+        }
 
         layoutHelpers = mHelperFinder.getLayoutHelpers();
         Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
@@ -317,6 +611,17 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         return mEnableMarginOverlapping;
     }
 
+    private final SpanBuffers mSpanBuffers = new SpanBuffers();
+
+    /**
+     * Scratch arrays shared by grid layoutHelpers, only valid during <code>doLayout</code>
+     *
+     * @return shared {@link SpanBuffers} of this layoutManager
+     */
+    public SpanBuffers getSpanBuffers() {
+        return mSpanBuffers;
+    }
+
     /**
      * Either be {@link #HORIZONTAL} or {@link #VERTICAL}
      *
@@ -366,6 +671,15 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     public void onAnchorReady(RecyclerView.State state, ExposeLinearLayoutManagerEx.AnchorInfo anchorInfo) {
         super.onAnchorReady(state, anchorInfo);
 
+        if (mVirtualNested && mVirtualWindowValid && !mVirtualWindowEmpty && getItemCount() > 0) {
+            // anchor at the estimated place of the first item in window
+            final int startPadding = mOrientationHelper.getStartAfterPadding();
+            final int position = findVirtualAnchorPosition(mVirtualWindowStart - startPadding);
+            anchorInfo.mPosition = position;
+            anchorInfo.mCoordinate = startPadding + estimateExtent(0, position);
+            anchorInfo.mLayoutFromEnd = false;
+        }
+
         boolean changed = true;
         while (changed) {
             mTempAnchorInfoWrapper.position = anchorInfo.mPosition;
@@ -389,12 +703,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
         mTempAnchorInfoWrapper.position = anchorInfo.mPosition;
         mTempAnchorInfoWrapper.coordinate = anchorInfo.mCoordinate;
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onRefreshLayout(state, mTempAnchorInfoWrapper, this);
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onRefreshLayout(state, mTempAnchorInfoWrapper, this);
         }
     }
 
@@ -402,14 +712,13 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (layoutHelper == null) {
             return null;
         }
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        int index = layoutHelpers.indexOf(layoutHelper);
+        int index = mHelperFinder.indexOf(layoutHelper);
         if (index == -1) {
             return null;
         }
         int next = isLayoutEnd ? index - 1 : index + 1;
-        if (next >= 0 && next < layoutHelpers.size()) {
-            LayoutHelper helper = layoutHelpers.get(next);
+        if (next >= 0 && next < mHelperFinder.size()) {
+            LayoutHelper helper = mHelperFinder.get(next);
             if (helper != null) {
                 if (helper.isFixLayout()) {
                     return null;
@@ -435,7 +744,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             LayoutHelper helper = mHelperFinder.getLayoutHelper(position);
 
             if (helper != null) {
-                return helper.computeAlignOffset(position - helper.getRange().getLower(),
+                return helper.computeAlignOffset(position - helper.getRangeStart(),
                         isLayoutEnd, useAnchor, this);
             }
         }
@@ -461,12 +770,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     private void runPreLayout(RecyclerView.Recycler recycler, RecyclerView.State state) {
 
         if (mNested == 0) {
-            List<LayoutHelper> reverseLayoutHelpers = mHelperFinder.reverse();
-            Iterator<LayoutHelper> iterator = reverseLayoutHelpers.iterator();
-            LayoutHelper layoutHelper = null;
-            while (iterator.hasNext()) {
-                layoutHelper = iterator.next();
-                layoutHelper.beforeLayout(recycler, state, this);
+            // in reverse order
+            for (int i = mHelperFinder.size() - 1; i >= 0; i--) {
+                mHelperFinder.get(i).beforeLayout(recycler, state, this);
             }
         }
 
@@ -479,13 +785,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             mNested = 0;
             final int startPosition = findFirstVisibleItemPosition();
             final int endPosition = findLastVisibleItemPosition();
-            List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-            Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-            LayoutHelper layoutHelper = null;
-            while (iterator.hasNext()) {
-                layoutHelper = iterator.next();
+            for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
                 try {
-                    layoutHelper.afterLayout(recycler, state, startPosition, endPosition, scrolled, this);
+                    mHelperFinder.get(i).afterLayout(recycler, state, startPosition, endPosition, scrolled, this);
                 } catch (Exception e) {
                     if (VirtualLayoutManager.sDebuggable) {
                         throw e;
@@ -494,22 +796,118 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             }
 
             if (null != mViewLifeCycleHelper) {
-                mViewLifeCycleHelper.checkViewStatusInScreen();
+                if (scrolled == Integer.MAX_VALUE) {
+                    mViewLifeCycleHelper.checkViewStatusInScreen();
+                } else {
+                    // children moved by the scroll are already checked by offsetChildren
+                    mViewLifeCycleHelper.checkViewStatusAfterOffset(0);
+                }
+            }
+
+            if (null != mOnApproachEndListener && endPosition != RecyclerView.NO_POSITION) {
+                dispatchApproachEnd(endPosition);
             }
         }
     }
 
+    private boolean mApproachEndPosted = false;
+
+    /**
+     * Listener is called outside of layout and scroll, so it can append data and notify the adapter right away
+     */
+    private final Runnable mApproachEndRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mApproachEndPosted = false;
+            for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = mHelperFinder.get(i);
+                if (layoutHelper.mApproachPending) {
+                    layoutHelper.mApproachPending = false;
+                    if (null != mOnApproachEndListener) {
+                        mOnApproachEndListener.onApproachEnd(i, layoutHelper);
+                    }
+                }
+            }
+        }
+    };
+
+    private void dispatchApproachEnd(int endPosition) {
+        final OrientationHelperEx orientationHelper = getMainOrientationHelper();
+        boolean pending = false;
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = mHelperFinder.get(i);
+            final int rangeStart = layoutHelper.getRangeStart();
+            final int rangeEnd = layoutHelper.getRangeEnd();
+            if (rangeStart > endPosition) {
+                // helpers are sorted by range, the rest are not reached yet
+                break;
+            }
+            final int itemCount = rangeEnd - rangeStart + 1;
+            if (layoutHelper.mApproachPending) {
+                pending = true;
+            }
+            if (layoutHelper.mEndLookahead < 0 || rangeEnd < 0 || layoutHelper.mApproachedItemCount == itemCount) {
+                continue;
+            }
+
+            boolean approached;
+            if (endPosition >= rangeEnd) {
+                approached = true;
+            } else if (!layoutHelper.mEndLookaheadInPixels) {
+                approached = rangeEnd - endPosition <= layoutHelper.mEndLookahead;
+            } else {
+                View lastView = findViewByPosition(endPosition);
+                if (lastView == null) {
+                    continue;
+                }
+                // estimate items not laid out yet with the size of last visible one
+                final int remaining = orientationHelper.getDecoratedEnd(lastView) - orientationHelper.getEndAfterPadding()
+                        + (rangeEnd - endPosition) * orientationHelper.getDecoratedMeasurement(lastView);
+                approached = remaining <= layoutHelper.mEndLookahead;
+            }
+
+            if (approached) {
+                layoutHelper.mApproachedItemCount = itemCount;
+                layoutHelper.mApproachPending = true;
+                pending = true;
+            }
+        }
+
+        if (pending && !mApproachEndPosted && mRecyclerView != null) {
+            mApproachEndPosted = true;
+            mRecyclerView.post(mApproachEndRunnable);
+        }
+    }
+
+    /**
+     * Listener notified when the end of a {@link LayoutHelper} comes within its {@link LayoutHelper#setEndLookahead lookahead}
+     */
+    public interface OnApproachEndListener {
+        /**
+         * Called once per item count of a helper, it is called again after the helper grows, for example next page appended.
+         * It is posted after the layout or scroll that approached the end, so the adapter can be notified directly.
+         *
+         * @param helperIndex index of helper in {@link #getLayoutHelpers()}, which is also the index of sub adapter in {@link DelegateAdapter}
+         * @param helper      the helper approached
+         */
+        void onApproachEnd(int helperIndex, LayoutHelper helper);
+    }
+
+    public void setOnApproachEndListener(@Nullable OnApproachEndListener listener) {
+        this.mOnApproachEndListener = listener;
+    }
+
     public void runAdjustLayout() {
         final int startPosition = findFirstVisibleItemPosition();
         final LayoutHelper firstLayoutHelper = mHelperFinder.getLayoutHelper(startPosition);
         final int endPosition = findLastVisibleItemPosition();
         final LayoutHelper lastLayoutHelper = mHelperFinder.getLayoutHelper(endPosition);
-        List<LayoutHelper> totalLayoutHelpers = mHelperFinder.getLayoutHelpers();
-        final int start = totalLayoutHelpers.indexOf(firstLayoutHelper);
-        final int end = totalLayoutHelpers.indexOf(lastLayoutHelper);
+        // indexes are found by range, so this is linear in visible helpers
+        final int start = Math.max(0, mHelperFinder.indexOf(firstLayoutHelper));
+        final int end = mHelperFinder.indexOf(lastLayoutHelper);
         for (int i = start; i <= end; i++) {
             try {
-                totalLayoutHelpers.get(i).adjustLayout(startPosition, endPosition, this);
+                mHelperFinder.get(i).adjustLayout(startPosition, endPosition, this);
             } catch (Exception e) {
                 if (VirtualLayoutManager.sDebuggable) {
                     throw e;
@@ -529,6 +927,29 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             mSpaceMeasuring = true;
         }
 
+        if (mVirtualNested) {
+            mVirtualWindowValid = true;
+            mVirtualWindowEmpty = !computeVisibleRange(mVirtualVisibleRect);
+            if (!mVirtualWindowEmpty) {
+                // lay out half of the visible size more on each side, to relayout less often on parent scrolling
+                final int visibleStart = getVisibleStart(mVirtualVisibleRect);
+                final int visibleEnd = getVisibleEnd(mVirtualVisibleRect);
+                final int extra = (visibleEnd - visibleStart) / 2;
+                mVirtualWindowStart = visibleStart - extra;
+                mVirtualWindowEnd = visibleEnd + extra;
+            }
+        }
+
+        mDetachedViewCache.recyclePending(recycler);
+
+        // children are scrapped and added back in this pass
+        mChildIndex.clear();
+        invalidateVisiblePositions();
+        applyPendingHelperStates();
+        applyPendingSnapshot();
+        if (mLayoutTrace != null && !state.isPreLayout()) {
+            mLayoutTrace.recordLayout(getWidth(), getHeight(), state.getItemCount());
+        }
 
         runPreLayout(recycler, state);
 
@@ -543,7 +964,17 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         }
 
 
-        if ((mNestedScrolling || mNoScrolling) && mSpaceMeasuring) {
+        if (mVirtualNested && !state.isPreLayout() && mRecyclerView != null
+                && mVirtualExtent >= 0 && estimateVirtualExtent() != mVirtualExtent) {
+            // estimation refined by items just measured
+            mRecyclerView.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mRecyclerView != null)
+                        mRecyclerView.requestLayout();
+                }
+            });
+        } else if ((mNestedScrolling || mNoScrolling) && mSpaceMeasuring) {
             // measure required, so do measure
             mSpaceMeasured = true;
             // get last child
@@ -565,7 +996,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
                 mSpaceMeasuring = false;
             }
             mSpaceMeasuring = false;
-            if (mRecyclerView != null && getItemCount() > 0) {
+            if (mRecyclerView != null && getItemCount() > 0 && !mMeasuringPass) {
                 // relayout
                 mRecyclerView.post(new Runnable() {
                     @Override
@@ -593,7 +1024,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             Trace.beginSection(TRACE_SCROLL);
         }
 
+        if (mLayoutTrace != null) {
+            mLayoutTrace.recordScroll(dy);
+        }
+        mDetachedViewCache.recyclePending(recycler);
         runPreLayout(recycler, state);
+        invalidateVisiblePositions();
 
         int scrolled = 0;
         try {
@@ -639,42 +1075,35 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
         int startPosition = findFirstVisibleItemPosition();
         int endPosition = findLastVisibleItemPosition();
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onScrollStateChanged(state, startPosition, endPosition, this);
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onScrollStateChanged(state, startPosition, endPosition, this);
         }
     }
 
     @Override
     public void offsetChildrenHorizontal(int dx) {
         super.offsetChildrenHorizontal(dx);
+        invalidateVisiblePositions();
 
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onOffsetChildrenHorizontal(dx, this);
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onOffsetChildrenHorizontal(dx, this);
+        }
 
+        if (null != mViewLifeCycleHelper) {
+            mViewLifeCycleHelper.checkViewStatusAfterOffset(dx);
         }
     }
 
     @Override
     public void offsetChildrenVertical(int dy) {
         super.offsetChildrenVertical(dy);
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onOffsetChildrenVertical(dy, this);
+        invalidateVisiblePositions();
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onOffsetChildrenVertical(dy, this);
         }
 
         if (null != mViewLifeCycleHelper) {
-            mViewLifeCycleHelper.checkViewStatusInScreen();
+            mViewLifeCycleHelper.checkViewStatusAfterOffset(dy);
         }
     }
 
@@ -686,6 +1115,32 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         mViewLifeCycleHelper = new ViewLifeCycleHelper(this, viewLifeCycleListener);
     }
 
+    /**
+     * Children may also be removed by the Recycler itself, e.g. scrapped views reclaimed after data changes, reset their
+     * life cycle status before they are rebound to other items
+     */
+    private final RecyclerView.OnChildAttachStateChangeListener mChildDetachListener = new RecyclerView.OnChildAttachStateChangeListener() {
+        @Override
+        public void onChildViewAttachedToWindow(View view) {
+
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(View view) {
+            if (null != mViewLifeCycleHelper) {
+                mViewLifeCycleHelper.onViewRecycled(view);
+            }
+        }
+    };
+
+    /**
+     * @return helper installed by {@link #setViewLifeCycleListener(ViewLifeCycleListener)}, or null
+     */
+    @Nullable
+    public ViewLifeCycleHelper getViewLifeCycleHelper() {
+        return mViewLifeCycleHelper;
+    }
+
     public int getVirtualLayoutDirection() {
         return mLayoutState.mLayoutDirection;
     }
@@ -733,6 +1188,13 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     @Override
     protected void layoutChunk(RecyclerView.Recycler recycler, RecyclerView.State state, LayoutState layoutState, com.alibaba.android.vlayout.layout.LayoutChunkResult result) {
         final int position = layoutState.mCurrentPosition;
+        if (mVirtualNested && mVirtualWindowValid && (mVirtualWindowEmpty
+                || (layoutState.mLayoutDirection == LayoutState.LAYOUT_END
+                ? layoutState.mOffset >= mVirtualWindowEnd : layoutState.mOffset <= mVirtualWindowStart))) {
+            // out of the window visible through parents, or not visible at all
+            result.mFinished = true;
+            return;
+        }
         mTempLayoutStateWrapper.mLayoutState = layoutState;
         LayoutHelper layoutHelper = mHelperFinder == null ? null : mHelperFinder.getLayoutHelper(position);
         if (layoutHelper == null)
@@ -767,45 +1229,302 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
                 mRangeLengths.remove(idx);
             }
-
-            mRangeLengths.add(Pair.create(range, consumed));
+
+            mRangeLengths.add(Pair.create(range, consumed));
+            Collections.sort(mRangeLengths, mRangeComparator);
+        }
+    }
+
+
+    /**
+     * Return current position related to the top, only works when scrolling from the top
+     *
+     * @return offset from current position to original top of RecycledView
+     */
+    public int getOffsetToStart() {
+        if (getChildCount() == 0) return -1;
+
+        final View view = getChildAt(0);
+
+        if (view == null) {
+            //in some conditions, for exapmle, calling this method when outter activity destroy, may cause npe
+            return -1;
+        }
+
+        int position = getPosition(view);
+        final int idx = findRangeLength(Range.create(position, position));
+        if (idx < 0 || idx >= mRangeLengths.size()) {
+            return -1;
+        }
+
+        int offset = -mOrientationHelper.getDecoratedStart(view);
+        for (int i = 0; i < idx; i++) {
+            Pair<Range<Integer>, Integer> pair = mRangeLengths.get(i);
+            if (pair != null) {
+                offset += pair.second;
+            }
+        }
+
+        return offset;
+    }
+
+
+    @Nullable
+    private LayoutSnapshotStore mSnapshotStore;
+
+    @Nullable
+    private Executor mSnapshotExecutor;
+
+    @Nullable
+    private LayoutSnapshotStore.Snapshot mPendingSnapshot;
+
+    private boolean mSnapshotApplied = false;
+
+    private Handler mMainHandler;
+
+    /**
+     * Load extents and span assignments persisted by a previous {@link #saveLayoutSnapshot()} on <code>executor</code>,
+     * and use them to estimate unseen items, for scrollbar and {@link #getOffsetToStart()}. Items are matched by
+     * stable id, so the adapter must have stable ids; extents measured in this session always take precedence.
+     *
+     * @param store    store to load from and save to, null to stop using snapshots
+     * @param executor executor for file access
+     */
+    public void setLayoutSnapshotStore(@Nullable final LayoutSnapshotStore store, @Nullable Executor executor) {
+        if (store != null && executor == null) {
+            throw new IllegalArgumentException("executor should not be null when store is set!");
+        }
+        mSnapshotStore = store;
+        mSnapshotExecutor = executor;
+        mPendingSnapshot = null;
+        mSnapshotApplied = false;
+        if (store == null) {
+            return;
+        }
+
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        final Handler handler = mMainHandler;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final LayoutSnapshotStore.Snapshot snapshot = store.read();
+                if (snapshot == null) {
+                    return;
+                }
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // store may be replaced while loading
+                        if (mSnapshotStore == store) {
+                            mPendingSnapshot = snapshot;
+                            requestLayout();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Persist measured extents and span assignments, usually called in <code>onPause</code>. State is collected on
+     * the calling thread and written on the executor given in {@link #setLayoutSnapshotStore(LayoutSnapshotStore, Executor)}.
+     */
+    public void saveLayoutSnapshot() {
+        final LayoutSnapshotStore store = mSnapshotStore;
+        final Executor executor = mSnapshotExecutor;
+        final RecyclerView.Adapter adapter = mRecyclerView == null ? null : mRecyclerView.getAdapter();
+        if (store == null || executor == null || adapter == null || !adapter.hasStableIds()) {
+            return;
+        }
+
+        final int itemCount = adapter.getItemCount();
+        final int maxEntries = store.getMaxEntries();
+        int chunkCount = 0;
+        final int rangeCount = Math.min(mRangeLengths.size(), maxEntries);
+        final LayoutSnapshotStore.Snapshot snapshot = new LayoutSnapshotStore.Snapshot(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            // sorted by lower bound, so chunks closest to start are kept
+            Pair<Range<Integer>, Integer> chunk = mRangeLengths.get(i);
+            final int lower = chunk.first.getLower();
+            final int upper = chunk.first.getUpper();
+            if (lower < 0 || upper >= itemCount) {
+                continue;
+            }
+            snapshot.mChunkIds[chunkCount] = adapter.getItemId(lower);
+            snapshot.mChunkItemCounts[chunkCount] = upper - lower + 1;
+            snapshot.mChunkExtents[chunkCount] = chunk.second;
+            chunkCount++;
+        }
+        snapshot.mChunkCount = chunkCount;
+
+        int spanCount = 0;
+        for (LayoutHelper helper : mHelperFinder.getLayoutHelpers()) {
+            if (!(helper instanceof StaggeredGridLayoutHelper)) {
+                continue;
+            }
+            StaggeredGridLayoutHelper staggered = (StaggeredGridLayoutHelper) helper;
+            final int end = Math.min(helper.getRangeEnd(), itemCount - 1);
+            for (int position = helper.getRangeStart(); position <= end && spanCount < maxEntries; position++) {
+                final int span = staggered.getSpanIndex(position);
+                if (span < 0 || span > Byte.MAX_VALUE) {
+                    continue;
+                }
+                snapshot.ensureSpans(Math.min(maxEntries, Math.max(16, spanCount * 2)));
+                snapshot.mSpanIds[spanCount] = adapter.getItemId(position);
+                snapshot.mSpans[spanCount] = (byte) span;
+                spanCount++;
+            }
+        }
+        snapshot.mSpanCount = spanCount;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                store.write(snapshot);
+            }
+        });
+    }
+
+    /**
+     * Map a loaded snapshot onto current positions, chunks that overlap measured ones or cross helpers are skipped
+     */
+    private void applyPendingSnapshot() {
+        final LayoutSnapshotStore.Snapshot snapshot = mPendingSnapshot;
+        final RecyclerView.Adapter adapter = mRecyclerView == null ? null : mRecyclerView.getAdapter();
+        if (snapshot == null || adapter == null) {
+            return;
+        }
+        mPendingSnapshot = null;
+        if (!adapter.hasStableIds()) {
+            if (sDebuggable) {
+                Log.w(TAG, "Layout snapshot is ignored, adapter has no stable ids");
+            }
+            return;
+        }
+
+        // ids in snapshot are sorted once and looked up by binary search for each adapter position
+        final int itemCount = adapter.getItemCount();
+        final long[] ids = new long[snapshot.mChunkCount + snapshot.mSpanCount];
+        System.arraycopy(snapshot.mChunkIds, 0, ids, 0, snapshot.mChunkCount);
+        System.arraycopy(snapshot.mSpanIds, 0, ids, snapshot.mChunkCount, snapshot.mSpanCount);
+        Arrays.sort(ids);
+        final int[] idPositions = new int[ids.length];
+        Arrays.fill(idPositions, -1);
+        for (int position = 0; position < itemCount; position++) {
+            final int idx = Arrays.binarySearch(ids, adapter.getItemId(position));
+            if (idx >= 0) {
+                idPositions[idx] = position;
+            }
+        }
+
+        // check against chunks measured so far, then add all and sort once
+        List<Pair<Range<Integer>, Integer>> restored = new ArrayList<>(snapshot.mChunkCount);
+        for (int i = 0; i < snapshot.mChunkCount; i++) {
+            final int position = idPositions[Arrays.binarySearch(ids, snapshot.mChunkIds[i])];
+            if (position < 0) {
+                continue;
+            }
+            final int upper = position + snapshot.mChunkItemCounts[i] - 1;
+            LayoutHelper helper = mHelperFinder.getLayoutHelper(position);
+            if (helper == null || upper > helper.getRangeEnd() || upper >= itemCount) {
+                continue;
+            }
+            Range<Integer> range = Range.create(position, upper);
+            if (findRangeLength(range) >= 0) {
+                continue;
+            }
+            restored.add(Pair.create(range, snapshot.mChunkExtents[i]));
+        }
+
+        boolean added = false;
+        if (!restored.isEmpty()) {
+            // chunks of a snapshot do not overlap unless items moved since it was taken
+            Collections.sort(restored, mRangeComparator);
+            int lastUpper = -1;
+            for (int i = 0, size = restored.size(); i < size; i++) {
+                Pair<Range<Integer>, Integer> chunk = restored.get(i);
+                if (chunk.first.getLower() > lastUpper) {
+                    mRangeLengths.add(chunk);
+                    lastUpper = chunk.first.getUpper();
+                    added = true;
+                }
+            }
             Collections.sort(mRangeLengths, mRangeComparator);
         }
-    }
 
+        for (int i = 0; i < snapshot.mSpanCount; i++) {
+            final int position = idPositions[Arrays.binarySearch(ids, snapshot.mSpanIds[i])];
+            if (position < 0) {
+                continue;
+            }
+            LayoutHelper helper = mHelperFinder.getLayoutHelper(position);
+            if (helper instanceof StaggeredGridLayoutHelper) {
+                ((StaggeredGridLayoutHelper) helper).setSpanIndex(position, snapshot.mSpans[i]);
+            }
+        }
 
-    /**
-     * Return current position related to the top, only works when scrolling from the top
-     *
-     * @return offset from current position to original top of RecycledView
-     */
-    public int getOffsetToStart() {
-        if (getChildCount() == 0) return -1;
+        mSnapshotApplied |= added;
+    }
 
-        final View view = getChildAt(0);
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != VERTICAL) {
+            return super.computeVerticalScrollOffset(state);
+        }
+        return computeEstimatedScrollOffset();
+    }
 
-        if (view == null) {
-            //in some conditions, for exapmle, calling this method when outter activity destroy, may cause npe
-            return -1;
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != VERTICAL) {
+            return super.computeVerticalScrollRange(state);
         }
+        return estimateVirtualExtent();
+    }
 
-        int position = getPosition(view);
-        final int idx = findRangeLength(Range.create(position, position));
-        if (idx < 0 || idx >= mRangeLengths.size()) {
-            return -1;
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != VERTICAL) {
+            return super.computeVerticalScrollExtent(state);
         }
+        return getHeight();
+    }
 
-        int offset = -mOrientationHelper.getDecoratedStart(view);
-        for (int i = 0; i < idx; i++) {
-            Pair<Range<Integer>, Integer> pair = mRangeLengths.get(i);
-            if (pair != null) {
-                offset += pair.second;
-            }
+    @Override
+    public int computeHorizontalScrollOffset(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != HORIZONTAL) {
+            return super.computeHorizontalScrollOffset(state);
         }
+        return computeEstimatedScrollOffset();
+    }
 
-        return offset;
+    @Override
+    public int computeHorizontalScrollRange(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != HORIZONTAL) {
+            return super.computeHorizontalScrollRange(state);
+        }
+        return estimateVirtualExtent();
+    }
+
+    @Override
+    public int computeHorizontalScrollExtent(RecyclerView.State state) {
+        if (!mSnapshotApplied || getOrientation() != HORIZONTAL) {
+            return super.computeHorizontalScrollExtent(state);
+        }
+        return getWidth();
     }
 
+    private int computeEstimatedScrollOffset() {
+        final int position = findFirstVisibleItemPosition();
+        final View view = position == RecyclerView.NO_POSITION ? null : findViewByPosition(position);
+        if (view == null) {
+            return 0;
+        }
+        return Math.max(0, estimateExtent(0, position)
+                - (mOrientationHelper.getDecoratedStart(view) - mOrientationHelper.getStartAfterPadding()));
+    }
 
     private static LayoutHelper DEFAULT_LAYOUT_HELPER = new DefaultLayoutHelper();
 
@@ -856,32 +1575,40 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
      */
     @Override
     public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        dispatchItemsChanged(positionStart);
     }
 
     @Override
     public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        dispatchItemsChanged(positionStart);
     }
 
     @Override
     public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        dispatchItemsChanged(positionStart);
     }
 
     @Override
     public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
-        onItemsChanged(recyclerView);
+        dispatchItemsChanged(Math.min(from, to));
+    }
+
+    private void dispatchItemsChanged(int positionStart) {
+        mChildIndex.clear();
+        mDetachedViewCache.invalidate(mRecyclerView != null ? mRecyclerView.getAdapter() : null, true);
+        invalidateVisiblePositions();
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onItemsChanged(positionStart, this);
+        }
     }
 
     @Override
     public void onItemsChanged(RecyclerView recyclerView) {
-        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onItemsChanged(this);
+        mChildIndex.clear();
+        mDetachedViewCache.invalidate(recyclerView.getAdapter(), true);
+        invalidateVisiblePositions();
+        for (int i = 0, size = mHelperFinder.size(); i < size; i++) {
+            mHelperFinder.get(i).onItemsChanged(this);
         }
 
         // setLayoutHelpers(mHelperFinder.getLayoutHelpers());
@@ -920,6 +1647,193 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     @Override
     public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
         super.onAdapterChanged(oldAdapter, newAdapter);
+        // views of the old adapter must not go to the pool of the new one
+        mDetachedViewCache.invalidate(oldAdapter, false);
+        if (mNestedScrollStateCache != null) {
+            mNestedScrollStateCache.clear();
+        }
+    }
+
+    private static final String HELPER_STATES_KEY = "VirtualLayoutManager_HelperStates";
+
+    private static final String HELPER_TYPES_KEY = "VirtualLayoutManager_HelperTypes";
+
+    private static final String HELPER_STARTS_KEY = "VirtualLayoutManager_HelperStarts";
+
+    private static final String RANGE_LENGTHS_KEY = "VirtualLayoutManager_RangeLengths";
+
+    /**
+     * Max measured chunks saved with instance state, those around the first visible item are kept, so long feeds do not
+     * overflow the binder transaction
+     */
+    private static final int MAX_SAVED_RANGE_LENGTHS = 256;
+
+    @Nullable
+    private Bundle mPendingHelperStates = null;
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable parcelable = super.onSaveInstanceState();
+        if (!(parcelable instanceof Bundle) || mPendingHelperStates != null) {
+            // still holding a restored state that is not applied, it is saved as is
+            return parcelable;
+        }
+
+        Bundle state = (Bundle) parcelable;
+        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
+        final int helperCount = layoutHelpers.size();
+        if (helperCount > 0) {
+            // each helper writes into its own bundle, so helpers of the same type never overwrite each other
+            Bundle helperStates = new Bundle();
+            int[] types = new int[helperCount];
+            int[] starts = new int[helperCount];
+            int i = 0;
+            for (LayoutHelper helper : layoutHelpers) {
+                Bundle helperState = new Bundle();
+                helper.onSaveState(helperState);
+                if (!helperState.isEmpty()) {
+                    helperStates.putBundle(String.valueOf(i), helperState);
+                }
+                types[i] = helperType(helper);
+                starts[i] = helper.getRangeStart();
+                i++;
+            }
+            state.putBundle(HELPER_STATES_KEY, helperStates);
+            state.putIntArray(HELPER_TYPES_KEY, types);
+            state.putIntArray(HELPER_STARTS_KEY, starts);
+        }
+
+        final int chunkCount = mRangeLengths.size();
+        if (chunkCount > 0) {
+            // keep chunks around the anchor, chunks are sorted by range
+            final int rangeCount = Math.min(chunkCount, MAX_SAVED_RANGE_LENGTHS);
+            final int anchorIdx = findFirstRangeLengthEndingAfter(Math.max(0, findFirstVisibleItemPosition()));
+            final int from = Math.max(0, Math.min(anchorIdx - rangeCount / 2, chunkCount - rangeCount));
+
+            // measured chunk extents as (lower, upper, length) triples
+            int[] rangeLengths = new int[rangeCount * 3];
+            for (int i = 0; i < rangeCount; i++) {
+                Pair<Range<Integer>, Integer> pair = mRangeLengths.get(from + i);
+                rangeLengths[i * 3] = pair.first.getLower();
+                rangeLengths[i * 3 + 1] = pair.first.getUpper();
+                rangeLengths[i * 3 + 2] = pair.second;
+            }
+            state.putIntArray(RANGE_LENGTHS_KEY, rangeLengths);
+        }
+        return state;
+    }
+
+    /**
+     * @return index of the first measured chunk whose upper bound is not before <code>position</code>
+     */
+    private int findFirstRangeLengthEndingAfter(int position) {
+        int s = 0, e = mRangeLengths.size();
+        while (s < e) {
+            final int m = (s + e) >>> 1;
+            if (mRangeLengths.get(m).first.getUpper() < position) {
+                s = m + 1;
+            } else {
+                e = m;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Type of a helper saved with instance state, the hash of its class name is enough to tell page structures apart
+     * together with range starts
+     */
+    private static int helperType(LayoutHelper helper) {
+        return helper.getClass().getName().hashCode();
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        super.onRestoreInstanceState(state);
+        if (!(state instanceof Bundle)) {
+            return;
+        }
+
+        Bundle bundle = (Bundle) state;
+        int[] rangeLengths = bundle.getIntArray(RANGE_LENGTHS_KEY);
+        if (rangeLengths != null && mRangeLengths.isEmpty()) {
+            for (int i = 0; i + 2 < rangeLengths.length; i += 3) {
+                mRangeLengths.add(Pair.create(Range.create(rangeLengths[i], rangeLengths[i + 1]), rangeLengths[i + 2]));
+            }
+        }
+
+        if (bundle.containsKey(HELPER_STATES_KEY)) {
+            mPendingHelperStates = bundle;
+            // helpers may be set later, otherwise they get their state before the first layout
+            applyPendingHelperStates();
+        }
+    }
+
+    /**
+     * Give restored states back to helpers, a helper only gets its state if it has the same type and range start as
+     * the one saved at its index, so states never leak into a different page structure
+     */
+    private void applyPendingHelperStates() {
+        if (mPendingHelperStates == null) {
+            return;
+        }
+
+        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
+        if (layoutHelpers.isEmpty()) {
+            return;
+        }
+
+        final Bundle bundle = mPendingHelperStates;
+        mPendingHelperStates = null;
+
+        Bundle helperStates = bundle.getBundle(HELPER_STATES_KEY);
+        int[] types = bundle.getIntArray(HELPER_TYPES_KEY);
+        int[] starts = bundle.getIntArray(HELPER_STARTS_KEY);
+        if (helperStates == null || types == null || starts == null) {
+            return;
+        }
+
+        int i = 0;
+        for (LayoutHelper helper : layoutHelpers) {
+            if (i >= types.length) {
+                break;
+            }
+            Bundle helperState = helperStates.getBundle(String.valueOf(i));
+            if (helperState != null && types[i] == helperType(helper)
+                    && starts[i] == helper.getRangeStart()) {
+                helper.onRestoreInstanceState(helperState);
+            }
+            i++;
+        }
+    }
+
+    @Nullable
+    private NestedScrollStateCache mNestedScrollStateCache;
+
+    /**
+     * Keep scroll state of nested horizontal RecyclerView/ViewPager for up to <code>maxEntries</code> recycled items,
+     * and restore it when the item is bound again. Items are keyed by stable id, so the adapter should have stable ids.
+     * The nested scroller is the item view itself, or the one returned by {@link NestedScrollStateHolder}.
+     *
+     * @param maxEntries max items to keep state for, 0 to disable
+     */
+    public void setNestedScrollStateCacheSize(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative, but is " + maxEntries);
+        }
+        mNestedScrollStateCache = maxEntries > 0 ? new NestedScrollStateCache(maxEntries) : null;
+    }
+
+    public int getNestedScrollStateCacheSize() {
+        return mNestedScrollStateCache == null ? 0 : mNestedScrollStateCache.getMaxEntries();
+    }
+
+    /**
+     * Implemented by ViewHolders whose nested scroller is not the item view itself
+     */
+    public interface NestedScrollStateHolder {
+        @Nullable
+        View getNestedScrollView();
     }
 
 
@@ -927,11 +1841,31 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     public void onAttachedToWindow(RecyclerView view) {
         super.onAttachedToWindow(view);
         mRecyclerView = view;
+        view.addOnChildAttachStateChangeListener(mChildDetachListener);
+        if (mDetachedViewCache.getSize() > 0 || mViewCacheExtension != null) {
+            view.setViewCacheExtension(getInstalledViewCacheExtension());
+        }
+        if (mRecyclerListener != null) {
+            view.setRecyclerListener(mRecyclerListener);
+        }
+        if (mVirtualNested) {
+            view.getViewTreeObserver().addOnScrollChangedListener(mVirtualScrollListener);
+        }
     }
 
     @Override
     public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
         super.onDetachedFromWindow(view, recycler);
+        view.removeOnChildAttachStateChangeListener(mChildDetachListener);
+        if (mVirtualNested) {
+            view.getViewTreeObserver().removeOnScrollChangedListener(mVirtualScrollListener);
+        }
+        mDetachedViewCache.clear();
+        mDetachedViewCache.recyclePending(recycler);
+        if (mDetachedViewCache.getSize() > 0) {
+            // leave the app's extension in place
+            view.setViewCacheExtension(mViewCacheExtension);
+        }
 
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
         Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
@@ -1215,14 +2149,28 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     }
 
 
+    /**
+     * Children changed other than by an offset, life cycle status of all of them is checked again
+     */
+    private void invalidateViewLifeCycle() {
+        if (null != mViewLifeCycleHelper) {
+            mViewLifeCycleHelper.invalidate();
+        }
+    }
+
     @Override
     public void addChildView(View view, int index) {
+        invalidateVisiblePositions();
+        invalidateViewLifeCycle();
         super.addView(view, index);
+        mChildIndex.put(getPosition(view), view);
     }
 
 
     @Override
     public void moveView(int fromIndex, int toIndex) {
+        invalidateVisiblePositions();
+        invalidateViewLifeCycle();
         super.moveView(fromIndex, toIndex);
     }
 
@@ -1234,14 +2182,22 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void addChildView(LayoutStateWrapper layoutState, View view, int index) {
+        invalidateVisiblePositions();
         showView(view);
 
         if (!layoutState.hasScrapList()) {
             // can not find in scrapList
             addView(view, index);
+            if (mNestedScrollStateCache != null) {
+                RecyclerView.ViewHolder holder = getChildViewHolder(view);
+                if (holder != null) {
+                    mNestedScrollStateCache.restore(holder);
+                }
+            }
         } else {
             addDisappearingView(view, index);
         }
+        mChildIndex.put(getPosition(view), view);
     }
 
     /**
@@ -1249,6 +2205,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
      */
     @Override
     public void addOffFlowView(View view, boolean head) {
+        invalidateVisiblePositions();
         showView(view);
         addHiddenView(view, head);
 
@@ -1256,6 +2213,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void addBackgroundView(View view, boolean head) {
+        invalidateVisiblePositions();
         showView(view);
         int index = head ? 0 : -1;
         addView(view, index);
@@ -1270,11 +2228,15 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void hideView(View view) {
+        invalidateVisiblePositions();
+        invalidateViewLifeCycle();
         super.hideView(view);
     }
 
     @Override
     public void showView(View view) {
+        invalidateVisiblePositions();
+        invalidateViewLifeCycle();
         super.showView(view);
     }
 
@@ -1303,6 +2265,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void removeChildView(View child) {
+        invalidateVisiblePositions();
+        mChildIndex.remove(getPosition(child), child);
         removeView(child);
     }
 
@@ -1338,7 +2302,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (layoutManagerCanScrollListener != null) {
             ret = ret && layoutManagerCanScrollListener.canScrollHorizontally();
         }
-        return mCanScrollHorizontally && !mNoScrolling && ret;
+        return mCanScrollHorizontally && !mNoScrolling && !mVirtualNested && ret;
     }
 
     @Override
@@ -1347,11 +2311,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (layoutManagerCanScrollListener != null) {
             ret = ret && layoutManagerCanScrollListener.canScrollVertically();
         }
-        return mCanScrollVertically && !mNoScrolling && ret;
+        return mCanScrollVertically && !mNoScrolling && !mVirtualNested && ret;
     }
 
     @Override
     public void layoutChildWithMargins(View child, int left, int top, int right, int bottom) {
+        invalidateViewLifeCycle();
         final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) child.getLayoutParams();
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordStart(PHASE_LAYOUT, child);
@@ -1365,6 +2330,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void layoutChild(View child, int left, int top, int right, int bottom) {
+        invalidateViewLifeCycle();
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordStart(PHASE_LAYOUT, child);
         }
@@ -1394,19 +2360,50 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             int endPos = getPosition(endView);
 
             int idx = startIndex;
+            int remaining = endIndex - startIndex;
 
-            for (int i = startIndex; i < endIndex; i++) {
+            while (remaining > 0) {
                 View v = getChildAt(idx);
                 int pos = getPosition(v);
-                if (pos != RecyclerView.NO_POSITION) {
-                    LayoutHelper layoutHelper = mHelperFinder.getLayoutHelper(pos);
-                    if (layoutHelper == null || layoutHelper.isRecyclable(pos, startPos, endPos, this, true)) {
-                        removeAndRecycleViewAt(idx, recycler);
-                    } else {
-                        idx++;
-                    }
-                } else
+                LayoutHelper layoutHelper = pos != RecyclerView.NO_POSITION ? mHelperFinder.getLayoutHelper(pos) : null;
+                if (layoutHelper == null) {
                     removeAndRecycleViewAt(idx, recycler);
+                    remaining--;
+                    continue;
+                }
+
+                // children of the same layoutHelper are contiguous, handle them as one run
+                int runCount = 1;
+                int lastPos = pos;
+                while (runCount < remaining) {
+                    int p = getPosition(getChildAt(idx + runCount));
+                    if (p == RecyclerView.NO_POSITION || p < layoutHelper.getRangeStart() || p > layoutHelper.getRangeEnd()) {
+                        break;
+                    }
+                    lastPos = p;
+                    runCount++;
+                }
+                remaining -= runCount;
+
+                switch (layoutHelper.checkRangeRecyclable(pos, lastPos, startPos, endPos, this, true)) {
+                    case LayoutHelper.RECYCLE_ALL:
+                        for (int i = 0; i < runCount; i++) {
+                            recycleChildAt(idx, recycler, true);
+                        }
+                        break;
+                    case LayoutHelper.RECYCLE_NONE:
+                        idx += runCount;
+                        break;
+                    default:
+                        for (int i = 0; i < runCount; i++) {
+                            if (layoutHelper.isRecyclable(getPosition(getChildAt(idx)), startPos, endPos, this, true)) {
+                                recycleChildAt(idx, recycler, true);
+                            } else {
+                                idx++;
+                            }
+                        }
+                        break;
+                }
             }
         } else {
 
@@ -1416,23 +2413,118 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             int startPos = getPosition(startView);
             int endPos = getPosition(endView);
 
-            for (int i = startIndex; i > endIndex; i--) {
-                View v = getChildAt(i);
+            int idx = startIndex;
+            while (idx > endIndex) {
+                View v = getChildAt(idx);
                 int pos = getPosition(v);
-                if (pos != RecyclerView.NO_POSITION) {
-                    LayoutHelper layoutHelper = mHelperFinder.getLayoutHelper(pos);
-                    if (layoutHelper == null || layoutHelper.isRecyclable(pos, startPos, endPos, this, false)) {
-                        removeAndRecycleViewAt(i, recycler);
+                LayoutHelper layoutHelper = pos != RecyclerView.NO_POSITION ? mHelperFinder.getLayoutHelper(pos) : null;
+                if (layoutHelper == null) {
+                    removeAndRecycleViewAt(idx, recycler);
+                    idx--;
+                    continue;
+                }
+
+                // children of the same layoutHelper are contiguous, handle them as one run
+                int runCount = 1;
+                int lastPos = pos;
+                while (idx - runCount > endIndex) {
+                    int p = getPosition(getChildAt(idx - runCount));
+                    if (p == RecyclerView.NO_POSITION || p < layoutHelper.getRangeStart() || p > layoutHelper.getRangeEnd()) {
+                        break;
                     }
-                } else
-                    removeAndRecycleViewAt(i, recycler);
+                    lastPos = p;
+                    runCount++;
+                }
+
+                // removing child at idx does not shift children before it
+                switch (layoutHelper.checkRangeRecyclable(pos, lastPos, startPos, endPos, this, false)) {
+                    case LayoutHelper.RECYCLE_ALL:
+                        for (int i = 0; i < runCount; i++) {
+                            recycleChildAt(idx - i, recycler, false);
+                        }
+                        break;
+                    case LayoutHelper.RECYCLE_NONE:
+                        break;
+                    default:
+                        for (int i = 0; i < runCount; i++) {
+                            if (layoutHelper.isRecyclable(getPosition(getChildAt(idx - i)), startPos, endPos, this, false)) {
+                                recycleChildAt(idx - i, recycler, false);
+                            }
+                        }
+                        break;
+                }
+                idx -= runCount;
+            }
+        }
+    }
+
+    private void recycleChildAt(int index, RecyclerView.Recycler recycler, boolean fromStart) {
+        View v = getChildAt(index);
+        mChildIndex.remove(getPosition(v), v);
+        if (null != mViewLifeCycleHelper) {
+            mViewLifeCycleHelper.onViewRecycled(v);
+        }
+
+        RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) v.getLayoutParams();
+        if (mDetachedViewCache.getSize() > 0 && mRecyclerView != null
+                && !params.isItemChanged() && !params.isItemRemoved() && !params.isViewInvalid()) {
+            // keep it bound for reversed scrolling, it may still be evicted to the recycler later
+            invalidateVisiblePositions();
+            captureNestedScrollState(v);
+            removeViewAt(index);
+            mDetachedViewCache.put(v, fromStart, recycler);
+        } else {
+            removeAndRecycleViewAt(index, recycler);
+        }
+    }
+
+    /**
+     * Release a view which is removed from RecyclerView but not recycled, notifying the RecyclerListener and
+     * <code>adapter</code> the same way the recycler does
+     */
+    void dropDetachedView(View view, RecyclerView.Adapter adapter, boolean toPool) {
+        if (mRecyclerView != null) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+            if (holder != null) {
+                if (mRecyclerListener != null) {
+                    mRecyclerListener.onViewRecycled(holder);
+                }
+                if (adapter != null) {
+                    adapter.onViewRecycled(holder);
+                }
+                if (toPool) {
+                    mRecyclerView.getRecycledViewPool().putRecycledView(holder);
+                }
             }
         }
     }
 
 
+    @Override
+    public void removeAndRecycleViewAt(int index, RecyclerView.Recycler recycler) {
+        invalidateVisiblePositions();
+        View v = getChildAt(index);
+        if (null != mViewLifeCycleHelper && v != null) {
+            mViewLifeCycleHelper.onViewRecycled(v);
+        }
+        if (v != null) {
+            captureNestedScrollState(v);
+        }
+        super.removeAndRecycleViewAt(index, recycler);
+    }
+
+    private void captureNestedScrollState(View v) {
+        if (null != mNestedScrollStateCache) {
+            RecyclerView.ViewHolder holder = getChildViewHolder(v);
+            if (holder != null) {
+                mNestedScrollStateCache.capture(holder);
+            }
+        }
+    }
+
     @Override
     public void detachAndScrapAttachedViews(RecyclerView.Recycler recycler) {
+        invalidateVisiblePositions();
         int childCount = this.getChildCount();
 
         for (int i = childCount - 1; i >= 0; --i) {
@@ -1471,12 +2563,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public int getContentWidth() {
-        return super.getWidth();
+        return getWidth();
     }
 
     @Override
     public int getContentHeight() {
-        return super.getHeight();
+        return getHeight();
     }
 
     @Override
@@ -1497,6 +2589,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordEnd(PHASE_MEASURE, child);
         }
+        if (mLayoutTrace != null) {
+            mLayoutTrace.recordMeasure(getPosition(child), child.getMeasuredWidth(), child.getMeasuredHeight());
+        }
     }
 
     private void measureChildWithDecorationsAndMargin(View child, int widthSpec, int heightSpec) {
@@ -1518,6 +2613,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordEnd(PHASE_MEASURE, child);
         }
+        if (mLayoutTrace != null) {
+            mLayoutTrace.recordMeasure(getPosition(child), child.getMeasuredWidth(), child.getMeasuredHeight());
+        }
     }
 
     /**
@@ -1546,15 +2644,86 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     }
 
 
+    private int mFirstVisiblePosition = RecyclerView.NO_POSITION;
+
+    private int mLastVisiblePosition = RecyclerView.NO_POSITION;
+
+    private boolean mFirstVisibleValid = false;
+
+    private boolean mLastVisibleValid = false;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The result is computed once and served until children are added, removed or moved.
+     */
+    @Override
+    public int findFirstVisibleItemPosition() {
+        if (!mFirstVisibleValid) {
+            mFirstVisiblePosition = super.findFirstVisibleItemPosition();
+            mFirstVisibleValid = true;
+        }
+        return mFirstVisiblePosition;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The result is computed once and served until children are added, removed or moved.
+     */
+    @Override
+    public int findLastVisibleItemPosition() {
+        if (!mLastVisibleValid) {
+            mLastVisiblePosition = super.findLastVisibleItemPosition();
+            mLastVisibleValid = true;
+        }
+        return mLastVisiblePosition;
+    }
+
+    /**
+     * Drop the cached result of {@link #findFirstVisibleItemPosition()} and {@link #findLastVisibleItemPosition()},
+     * call it if child views are changed without going through this LayoutManager
+     */
+    public void invalidateVisiblePositions() {
+        mFirstVisibleValid = false;
+        mLastVisibleValid = false;
+    }
+
+    @Override
+    public void onLayoutCompleted(RecyclerView.State state) {
+        super.onLayoutCompleted(state);
+        // item animator may hide disappearing views after layout
+        invalidateVisiblePositions();
+    }
+
+    /**
+     * Attached children indexed by position, filled in addChildView and verified on lookup
+     */
+    private final ChildPositionIndex mChildIndex = new ChildPositionIndex();
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Views laid out by layoutHelpers are found in O(1) via a position index, others fall back to scanning children.
+     */
     @Override
     public View findViewByPosition(int position) {
-        View view = super.findViewByPosition(position);
-        if (view != null && getPosition(view) == position)
+        View view = mChildIndex.get(position);
+        if (view != null && mRecyclerView != null && view.getParent() == mRecyclerView && !isHidden(view)
+                && getPosition(view) == position) {
+            return view;
+        }
+
+        view = super.findViewByPosition(position);
+        if (view != null && getPosition(view) == position) {
+            mChildIndex.put(position, view);
             return view;
+        }
 
         for (int i = 0; i < getChildCount(); i++) {
             view = getChildAt(i);
             if (view != null && getPosition(view) == position) {
+                mChildIndex.put(position, view);
                 return view;
             }
         }
@@ -1596,15 +2765,77 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     private boolean mSpaceMeasuring = false;
 
+    private boolean mSinglePassMeasure = false;
+
+    /**
+     * Whether items are laid out from onMeasure, {@link #getWidth()} and {@link #getHeight()} return the measuring size then
+     */
+    private boolean mMeasuringPass = false;
+
+    private int mMeasuringWidth = 0;
+
+    private int mMeasuringHeight = 0;
+
+    @Override
+    public int getWidth() {
+        return mMeasuringPass ? mMeasuringWidth : super.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mMeasuringPass ? mMeasuringHeight : super.getHeight();
+    }
+
+    private void measureInSinglePass(RecyclerView.Recycler recycler, RecyclerView.State state, int widthSpec, int heightSpec) {
+        final boolean vertical = getOrientation() == VERTICAL;
+        if (getItemCount() == 0) {
+            mMeasuredFullSpace = 0;
+        } else {
+            // lay out every item into an unbounded space, children stay attached and are reused by the layout pass
+            mMeasuringPass = true;
+            mMeasuringWidth = vertical ? View.MeasureSpec.getSize(widthSpec) : MAX_NO_SCROLLING_SIZE;
+            mMeasuringHeight = vertical ? MAX_NO_SCROLLING_SIZE : View.MeasureSpec.getSize(heightSpec);
+            mSpaceMeasuring = true;
+            try {
+                onLayoutChildren(recycler, state);
+            } finally {
+                mMeasuringPass = false;
+                mSpaceMeasuring = false;
+            }
+        }
+        mSpaceMeasured = true;
+
+        if (vertical) {
+            super.onMeasure(recycler, state, widthSpec, View.MeasureSpec.makeMeasureSpec(mMeasuredFullSpace, View.MeasureSpec.EXACTLY));
+        } else {
+            super.onMeasure(recycler, state, View.MeasureSpec.makeMeasureSpec(mMeasuredFullSpace, View.MeasureSpec.EXACTLY), heightSpec);
+        }
+    }
+
 
     @Override
     public void onMeasure(RecyclerView.Recycler recycler, RecyclerView.State state, int widthSpec, int heightSpec) {
+        if (mVirtualNested) {
+            mVirtualExtent = estimateVirtualExtent();
+            if (getOrientation() == VERTICAL) {
+                super.onMeasure(recycler, state, widthSpec, View.MeasureSpec.makeMeasureSpec(mVirtualExtent, View.MeasureSpec.EXACTLY));
+            } else {
+                super.onMeasure(recycler, state, View.MeasureSpec.makeMeasureSpec(mVirtualExtent, View.MeasureSpec.EXACTLY), heightSpec);
+            }
+            return;
+        }
+
         if (!mNoScrolling && !mNestedScrolling) {
 
             super.onMeasure(recycler, state, widthSpec, heightSpec);
             return;
         }
 
+        if (mNoScrolling && mSinglePassMeasure && mRecyclerView != null && !state.isPreLayout()) {
+            measureInSinglePass(recycler, state, widthSpec, heightSpec);
+            return;
+        }
+
 
         int initialSize = MAX_NO_SCROLLING_SIZE;
 
@@ -0,0 +1,343 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.View;
+
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Collects appear/disappear events from {@link ViewLifeCycleHelper} into a fixed size ring buffer and delivers them
+ * to {@link ExposureListener} in batches, when scrolling becomes idle, when the buffer is full or on {@link #flush()}.
+ * Install it with {@link #attach(RecyclerView, VirtualLayoutManager)}.
+ */
+public class ExposureTracker extends RecyclerView.OnScrollListener implements ViewLifeCycleListener {
+
+    public interface ExposureListener {
+        /**
+         * Called with a batch of events, on the executor if one is supplied, otherwise on main thread.
+         * The batch is reused after this method returns, do not keep a reference to it.
+         */
+        void onExposure(ExposureBatch batch);
+    }
+
+    public static final int EVENT_APPEAR = 0;
+
+    public static final int EVENT_DISAPPEAR = 1;
+
+    private static final int TIME_VISIBLE_SINCE = 0;
+
+    private static final int TIME_LAST_APPEAR = 1;
+
+    private static final int TIME_LAST_DISAPPEAR = 2;
+
+    /**
+     * time of an event that never happened, elapsed realtime is never negative
+     */
+    private static final long NEVER = -1;
+
+    private final ExposureListener mExposureListener;
+
+    @Nullable
+    private final Executor mExecutor;
+
+    private final long mDedupWindow;
+
+    private ExposureBatch mPending;
+
+    private ExposureBatch mDelivering;
+
+    private volatile boolean mDeliveringBusy = false;
+
+    private final SparseArray<long[]> mPositionTimes = new SparseArray<>();
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private RecyclerView mRecyclerView;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Runnable mDeliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                mExposureListener.onExposure(mDelivering);
+            } finally {
+                mDelivering.clear();
+                mDeliveringBusy = false;
+                if (mExecutor != null) {
+                    // events recorded while delivering were skipped by flush(), deliver them from main thread
+                    mMainHandler.post(mFlushRunnable);
+                }
+            }
+        }
+    };
+
+    public ExposureTracker(@NonNull ExposureListener listener) {
+        this(listener, 64, null, 0);
+    }
+
+    /**
+     * @param listener    receiver of batches
+     * @param capacity    max events in one batch, oldest events are overwritten if the previous batch is still delivering
+     * @param executor    executor to deliver batches on, null to deliver on main thread
+     * @param dedupWindow repeated events of the same kind for the same position within this many milliseconds are dropped
+     */
+    public ExposureTracker(@NonNull ExposureListener listener, int capacity, @Nullable Executor executor, long dedupWindow) {
+        if (listener == null) {
+            throw new IllegalArgumentException("ExposureListener should not be null!");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, but is " + capacity);
+        }
+        if (dedupWindow < 0) {
+            throw new IllegalArgumentException("dedupWindow must not be negative, but is " + dedupWindow);
+        }
+
+        mExposureListener = listener;
+        mExecutor = executor;
+        mDedupWindow = dedupWindow;
+        mPending = new ExposureBatch(capacity);
+        mDelivering = new ExposureBatch(capacity);
+    }
+
+    public void attach(@NonNull RecyclerView recyclerView, @NonNull VirtualLayoutManager layoutManager) {
+        detach();
+        mRecyclerView = recyclerView;
+        mLayoutManager = layoutManager;
+        layoutManager.setViewLifeCycleListener(this);
+        recyclerView.addOnScrollListener(this);
+    }
+
+    /**
+     * Stop listening to scroll events and deliver what is pending
+     */
+    public void detach() {
+        if (mRecyclerView != null) {
+            mRecyclerView.removeOnScrollListener(this);
+            mRecyclerView = null;
+        }
+        flush();
+        mLayoutManager = null;
+        mPositionTimes.clear();
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onAppearing(View view) {
+
+    }
+
+    @Override
+    public void onDisappearing(View view) {
+
+    }
+
+    @Override
+    public void onAppeared(View view) {
+        final int position = getPosition(view);
+        if (position < 0) {
+            return;
+        }
+
+        final long now = SystemClock.elapsedRealtime();
+        long[] times = mPositionTimes.get(position);
+        if (times == null) {
+            times = new long[]{NEVER, NEVER, NEVER};
+            mPositionTimes.put(position, times);
+        }
+        if (times[TIME_VISIBLE_SINCE] == NEVER) {
+            times[TIME_VISIBLE_SINCE] = now;
+        }
+        if (isWithinDedupWindow(now, times[TIME_LAST_APPEAR])) {
+            return;
+        }
+
+        times[TIME_LAST_APPEAR] = now;
+        record(EVENT_APPEAR, position, now, 0);
+    }
+
+    @Override
+    public void onDisappeared(View view) {
+        final int position = getPosition(view);
+        long[] times = position < 0 ? null : mPositionTimes.get(position);
+        if (times == null || times[TIME_VISIBLE_SINCE] == NEVER) {
+            // never reported appeared
+            return;
+        }
+
+        final long now = SystemClock.elapsedRealtime();
+        final long dwell = now - times[TIME_VISIBLE_SINCE];
+        times[TIME_VISIBLE_SINCE] = NEVER;
+        if (isWithinDedupWindow(now, times[TIME_LAST_DISAPPEAR])) {
+            return;
+        }
+
+        times[TIME_LAST_DISAPPEAR] = now;
+        record(EVENT_DISAPPEAR, position, now, dwell);
+    }
+
+    /**
+     * Deliver pending events now, does nothing if there is none. If the previous batch is still delivering, they are
+     * delivered once it is done.
+     */
+    public void flush() {
+        if (mPending.mSize == 0 || mDeliveringBusy) {
+            return;
+        }
+
+        ExposureBatch batch = mPending;
+        mPending = mDelivering;
+        mDelivering = batch;
+        mDeliveringBusy = true;
+        if (mExecutor != null) {
+            mExecutor.execute(mDeliverRunnable);
+        } else {
+            mDeliverRunnable.run();
+        }
+        pruneExpired(SystemClock.elapsedRealtime());
+    }
+
+    private void record(int event, int position, long time, long dwell) {
+        if (mPending.isFull()) {
+            flush();
+        }
+        mPending.add(event, position, time, dwell);
+    }
+
+    private int getPosition(View view) {
+        return mLayoutManager == null ? RecyclerView.NO_POSITION : mLayoutManager.getPosition(view);
+    }
+
+    private void pruneExpired(long now) {
+        for (int i = mPositionTimes.size() - 1; i >= 0; i--) {
+            long[] times = mPositionTimes.valueAt(i);
+            if (times[TIME_VISIBLE_SINCE] == NEVER
+                    && !isWithinDedupWindow(now, times[TIME_LAST_APPEAR])
+                    && !isWithinDedupWindow(now, times[TIME_LAST_DISAPPEAR])) {
+                mPositionTimes.removeAt(i);
+            }
+        }
+    }
+
+    private boolean isWithinDedupWindow(long now, long last) {
+        return last != NEVER && now - last <= mDedupWindow;
+    }
+
+    /**
+     * Events in order of occurrence, backed by primitive arrays that are reused between batches
+     */
+    public static final class ExposureBatch {
+
+        private final int[] mEvents;
+
+        private final int[] mPositions;
+
+        private final long[] mTimes;
+
+        private final long[] mDwellTimes;
+
+        private int mHead = 0;
+
+        private int mSize = 0;
+
+        private int mDropped = 0;
+
+        ExposureBatch(int capacity) {
+            mEvents = new int[capacity];
+            mPositions = new int[capacity];
+            mTimes = new long[capacity];
+            mDwellTimes = new long[capacity];
+        }
+
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * @return number of events overwritten because the buffer was full
+         */
+        public int getDroppedCount() {
+            return mDropped;
+        }
+
+        /**
+         * @return {@link #EVENT_APPEAR} or {@link #EVENT_DISAPPEAR}
+         */
+        public int getEvent(int index) {
+            return mEvents[slot(index)];
+        }
+
+        public int getPosition(int index) {
+            return mPositions[slot(index)];
+        }
+
+        /**
+         * @return {@link SystemClock#elapsedRealtime()} when the event happened
+         */
+        public long getTime(int index) {
+            return mTimes[slot(index)];
+        }
+
+        /**
+         * @return milliseconds the position stayed appeared, 0 for appear events
+         */
+        public long getDwellTime(int index) {
+            return mDwellTimes[slot(index)];
+        }
+
+        boolean isFull() {
+            return mSize == mEvents.length;
+        }
+
+        void add(int event, int position, long time, long dwell) {
+            final int capacity = mEvents.length;
+            int slot;
+            if (mSize == capacity) {
+                slot = mHead;
+                mHead = (mHead + 1) % capacity;
+                mDropped++;
+            } else {
+                slot = (mHead + mSize) % capacity;
+                mSize++;
+            }
+            mEvents[slot] = event;
+            mPositions[slot] = position;
+            mTimes[slot] = time;
+            mDwellTimes[slot] = dwell;
+        }
+
+        void clear() {
+            mHead = 0;
+            mSize = 0;
+            mDropped = 0;
+        }
+
+        private int slot(int index) {
+            if (index < 0 || index >= mSize) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+            }
+            return (mHead + index) % mEvents.length;
+        }
+    }
+}
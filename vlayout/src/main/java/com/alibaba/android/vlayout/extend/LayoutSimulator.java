@@ -0,0 +1,411 @@
+package com.alibaba.android.vlayout.extend;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.MarginLayoutHelper;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates how many item views a page costs, without Android: items are placed along the main axis from synthetic
+ * extents the way linear, grid and staggered helpers place them, then the viewport is scrolled from start to end
+ * while attached, created, bound and recycled views are counted per scrolled screen, following RecyclerView's view
+ * cache and per view type pool.
+ * <p>
+ * Describe the page with {@link Section}s, or convert existing helpers with {@link #sectionsOf(List, int)}.
+ * Not simulated:
+ * <ul>
+ * <li>fixed, sticky, scroll fix and float helpers, they are treated as linear sections scrolling with the page</li>
+ * <li>extra layout space, only views intersecting the viewport are attached</li>
+ * <li>item prefetch, which VirtualLayoutManager disables, and the detached view cache</li>
+ * <li>item animations and data changes</li>
+ * </ul>
+ */
+public class LayoutSimulator {
+
+    /**
+     * Main axis extent of an item, e.g. its height for a vertical page
+     */
+    public interface ItemSizer {
+        int getItemExtent(int position);
+    }
+
+    public static final class Section {
+
+        final String mType;
+
+        final int mItemCount;
+
+        final int mColumns;
+
+        final boolean mStaggered;
+
+        final int mGap;
+
+        final int mLeading;
+
+        final int mTrailing;
+
+        int mViewType = -1;
+
+        /**
+         * @param type      name to report peak child count for, usually the helper class name
+         * @param itemCount items in the section
+         * @param columns   1 for linear, span count for grid, lanes for staggered
+         * @param staggered whether items go to the shortest lane instead of rows
+         * @param gap       gap between rows along the main axis
+         * @param leading   margin and padding before the section along the main axis
+         * @param trailing  margin and padding after the section along the main axis
+         */
+        public Section(String type, int itemCount, int columns, boolean staggered, int gap, int leading, int trailing) {
+            if (itemCount < 0 || columns <= 0) {
+                throw new IllegalArgumentException("itemCount must not be negative and columns must be positive, but are "
+                        + itemCount + ", " + columns);
+            }
+            mType = type;
+            mItemCount = itemCount;
+            mColumns = columns;
+            mStaggered = staggered;
+            mGap = gap;
+            mLeading = leading;
+            mTrailing = trailing;
+        }
+
+        /**
+         * Set view type shared by items of this section, sections with the same view type share a pool.
+         * By default each section has its own view type.
+         */
+        public Section setViewType(int viewType) {
+            mViewType = viewType;
+            return this;
+        }
+    }
+
+    private int mCachedViewCount = 2;
+
+    private int mMaxRecycledViews = 5;
+
+    /**
+     * @param cachedViewCount size of RecyclerView's view cache, views in it are reused without binding
+     */
+    public void setCachedViewCount(int cachedViewCount) {
+        if (cachedViewCount < 0) {
+            throw new IllegalArgumentException("cachedViewCount must not be negative, but is " + cachedViewCount);
+        }
+        mCachedViewCount = cachedViewCount;
+    }
+
+    /**
+     * @param maxRecycledViews max views kept by the pool for each view type
+     */
+    public void setMaxRecycledViews(int maxRecycledViews) {
+        if (maxRecycledViews < 0) {
+            throw new IllegalArgumentException("maxRecycledViews must not be negative, but is " + maxRecycledViews);
+        }
+        mMaxRecycledViews = maxRecycledViews;
+    }
+
+    /**
+     * Describe helpers as sections, extents and gaps are taken along <code>orientation</code>
+     */
+    public static List<Section> sectionsOf(List<LayoutHelper> helpers, int orientation) {
+        final boolean vertical = orientation == VirtualLayoutManager.VERTICAL;
+        List<Section> sections = new ArrayList<>(helpers.size());
+        for (LayoutHelper helper : helpers) {
+            int columns = 1;
+            int gap = 0;
+            boolean staggered = false;
+            if (helper instanceof GridLayoutHelper) {
+                GridLayoutHelper grid = (GridLayoutHelper) helper;
+                columns = grid.getSpanCount();
+                gap = vertical ? grid.getVGap() : grid.getHGap();
+            } else if (helper instanceof StaggeredGridLayoutHelper) {
+                StaggeredGridLayoutHelper lanes = (StaggeredGridLayoutHelper) helper;
+                columns = lanes.getLane();
+                gap = vertical ? lanes.getVGap() : lanes.getHGap();
+                staggered = true;
+            }
+
+            int leading = 0;
+            int trailing = 0;
+            if (helper instanceof MarginLayoutHelper) {
+                MarginLayoutHelper margin = (MarginLayoutHelper) helper;
+                leading = vertical ? margin.getMarginTop() + margin.getPaddingTop()
+                        : margin.getMarginLeft() + margin.getPaddingLeft();
+                trailing = vertical ? margin.getMarginBottom() + margin.getPaddingBottom()
+                        : margin.getMarginRight() + margin.getPaddingRight();
+            }
+            sections.add(new Section(helper.getClass().getSimpleName(), helper.getItemCount(), Math.max(1, columns),
+                    staggered, gap, leading, trailing));
+        }
+        return sections;
+    }
+
+    /**
+     * Scroll through the whole page, one step of <code>scrollStep</code> at a time
+     *
+     * @param sections   page structure
+     * @param sizer      synthetic item extents
+     * @param viewport   viewport extent along the main axis
+     * @param scrollStep distance of a single scroll, a screen is counted every <code>viewport</code> distance
+     */
+    public Report simulate(List<Section> sections, ItemSizer sizer, int viewport, int scrollStep) {
+        if (viewport <= 0 || scrollStep <= 0) {
+            throw new IllegalArgumentException("viewport and scrollStep must be positive, but are "
+                    + viewport + ", " + scrollStep);
+        }
+
+        int total = 0;
+        for (int i = 0, size = sections.size(); i < size; i++) {
+            total += sections.get(i).mItemCount;
+        }
+        final int[] starts = new int[total];
+        final int[] ends = new int[total];
+        final int[] owners = new int[total];
+        final int contentExtent = place(sections, sizer, starts, ends, owners);
+
+        final int maxScroll = Math.max(0, contentExtent - viewport);
+        final int screens = maxScroll / viewport + 1;
+        Report report = new Report(screens);
+
+        final boolean[] attached = new boolean[total];
+        final ArrayDeque<Integer> cache = new ArrayDeque<>();
+        final boolean[] cached = new boolean[total];
+        final Map<Integer, Integer> pool = new HashMap<>();
+        final int[] typeCounts = new int[sections.size()];
+        final Map<String, Integer> typeTotals = new HashMap<>();
+
+        int offset = 0;
+        while (true) {
+            final int screen = Math.min(offset / viewport, screens - 1);
+            final int windowEnd = offset + viewport;
+            Arrays.fill(typeCounts, 0);
+            int childCount = 0;
+            for (int position = 0; position < total; position++) {
+                final boolean visible = ends[position] > offset && starts[position] < windowEnd;
+                final Section section = sections.get(owners[position]);
+                final int viewType = section.mViewType >= 0 ? section.mViewType : -1 - owners[position];
+                if (visible) {
+                    typeCounts[owners[position]]++;
+                    childCount++;
+                }
+                if (visible == attached[position]) {
+                    continue;
+                }
+
+                attached[position] = visible;
+                if (visible) {
+                    report.mAttached[screen]++;
+                    if (cached[position]) {
+                        // back from view cache, no bind
+                        cached[position] = false;
+                        cache.removeFirstOccurrence(position);
+                        continue;
+                    }
+                    Integer pooled = pool.get(viewType);
+                    if (pooled != null && pooled > 0) {
+                        pool.put(viewType, pooled - 1);
+                    } else {
+                        report.mCreated[screen]++;
+                    }
+                    report.mBound[screen]++;
+                } else {
+                    cache.addLast(position);
+                    cached[position] = true;
+                    if (cache.size() > mCachedViewCount) {
+                        final int evicted = cache.removeFirst();
+                        cached[evicted] = false;
+                        final Section evictedSection = sections.get(owners[evicted]);
+                        final int evictedType = evictedSection.mViewType >= 0
+                                ? evictedSection.mViewType : -1 - owners[evicted];
+                        Integer pooled = pool.get(evictedType);
+                        final int count = pooled == null ? 0 : pooled;
+                        if (count < mMaxRecycledViews) {
+                            pool.put(evictedType, count + 1);
+                            report.mRecycled[screen]++;
+                        } else {
+                            report.mDestroyed[screen]++;
+                        }
+                    }
+                }
+            }
+
+            report.mPeakChildCount = Math.max(report.mPeakChildCount, childCount);
+            // sections of the same type are summed up
+            typeTotals.clear();
+            for (int i = 0; i < typeCounts.length; i++) {
+                final String type = sections.get(i).mType;
+                Integer count = typeTotals.get(type);
+                typeTotals.put(type, count == null ? typeCounts[i] : count + typeCounts[i]);
+            }
+            for (Map.Entry<String, Integer> entry : typeTotals.entrySet()) {
+                Integer peak = report.mPeakChildCounts.get(entry.getKey());
+                if (peak == null || peak < entry.getValue()) {
+                    report.mPeakChildCounts.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (offset >= maxScroll) {
+                break;
+            }
+            offset = Math.min(maxScroll, offset + scrollStep);
+        }
+        return report;
+    }
+
+    /**
+     * @return content extent
+     */
+    private static int place(List<Section> sections, ItemSizer sizer, int[] starts, int[] ends, int[] owners) {
+        int offset = 0;
+        int position = 0;
+        for (int s = 0, size = sections.size(); s < size; s++) {
+            final Section section = sections.get(s);
+            if (section.mItemCount == 0) {
+                continue;
+            }
+            offset += section.mLeading;
+            if (section.mStaggered) {
+                final int[] lanes = new int[section.mColumns];
+                Arrays.fill(lanes, offset);
+                for (int i = 0; i < section.mItemCount; i++, position++) {
+                    int lane = 0;
+                    for (int l = 1; l < lanes.length; l++) {
+                        if (lanes[l] < lanes[lane]) {
+                            lane = l;
+                        }
+                    }
+                    final int start = lanes[lane] == offset ? offset : lanes[lane] + section.mGap;
+                    starts[position] = start;
+                    ends[position] = start + sizer.getItemExtent(position);
+                    owners[position] = s;
+                    lanes[lane] = ends[position];
+                }
+                int end = offset;
+                for (int lane : lanes) {
+                    end = Math.max(end, lane);
+                }
+                offset = end;
+            } else {
+                for (int i = 0; i < section.mItemCount; i += section.mColumns) {
+                    final int rowStart = i == 0 ? offset : offset + section.mGap;
+                    final int rowCount = Math.min(section.mColumns, section.mItemCount - i);
+                    int rowEnd = rowStart;
+                    for (int c = 0; c < rowCount; c++) {
+                        rowEnd = Math.max(rowEnd, rowStart + sizer.getItemExtent(position + c));
+                    }
+                    for (int c = 0; c < rowCount; c++, position++) {
+                        starts[position] = rowStart;
+                        ends[position] = rowEnd;
+                        owners[position] = s;
+                    }
+                    offset = rowEnd;
+                }
+            }
+            offset += section.mTrailing;
+        }
+        return offset;
+    }
+
+    public static final class Report {
+
+        final int[] mAttached;
+
+        final int[] mCreated;
+
+        final int[] mBound;
+
+        final int[] mRecycled;
+
+        final int[] mDestroyed;
+
+        int mPeakChildCount = 0;
+
+        final Map<String, Integer> mPeakChildCounts = new LinkedHashMap<>();
+
+        Report(int screens) {
+            mAttached = new int[screens];
+            mCreated = new int[screens];
+            mBound = new int[screens];
+            mRecycled = new int[screens];
+            mDestroyed = new int[screens];
+        }
+
+        public int getScreenCount() {
+            return mAttached.length;
+        }
+
+        public int getAttachedCount(int screen) {
+            return mAttached[screen];
+        }
+
+        public int getCreatedCount(int screen) {
+            return mCreated[screen];
+        }
+
+        public int getBoundCount(int screen) {
+            return mBound[screen];
+        }
+
+        /**
+         * @return views put into the pool in the screen
+         */
+        public int getRecycledCount(int screen) {
+            return mRecycled[screen];
+        }
+
+        /**
+         * @return views dropped because the pool of their type is full
+         */
+        public int getDestroyedCount(int screen) {
+            return mDestroyed[screen];
+        }
+
+        public int getPeakChildCount() {
+            return mPeakChildCount;
+        }
+
+        /**
+         * @return peak attached children of each section type
+         */
+        public Map<String, Integer> getPeakChildCounts() {
+            return mPeakChildCounts;
+        }
+
+        public int getTotalCreatedCount() {
+            return sum(mCreated);
+        }
+
+        public int getTotalBoundCount() {
+            return sum(mBound);
+        }
+
+        private static int sum(int[] values) {
+            int sum = 0;
+            for (int value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("screen\tattached\tcreated\tbound\trecycled\tdestroyed\n");
+            for (int i = 0; i < mAttached.length; i++) {
+                sb.append(i).append('\t').append(mAttached[i]).append('\t').append(mCreated[i]).append('\t')
+                        .append(mBound[i]).append('\t').append(mRecycled[i]).append('\t').append(mDestroyed[i])
+                        .append('\n');
+            }
+            sb.append("peak children: ").append(mPeakChildCount).append(' ').append(mPeakChildCounts);
+            return sb.toString();
+        }
+    }
+}
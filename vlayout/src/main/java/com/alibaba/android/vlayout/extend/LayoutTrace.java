@@ -0,0 +1,276 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.support.annotation.NonNull;
+import android.util.SparseIntArray;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.MarginLayoutHelper;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact trace of layout inputs of a VirtualLayoutManager: helper configurations, layout passes with item count,
+ * measured child sizes and scroll deltas. Install it with
+ * {@link com.alibaba.android.vlayout.VirtualLayoutManager#setLayoutTrace(LayoutTrace)}, save it with
+ * {@link #writeTo(OutputStream)} and play it back with {@link LayoutTraceReplayer}.
+ * <p>
+ * Events are stored as ints, each starting with its type. Recording stops silently once the capacity is reached,
+ * see {@link #isTruncated()}.
+ */
+public class LayoutTrace {
+
+    /**
+     * helper count, then per helper: class index, item count, margins (l, t, r, b), paddings (l, t, r, b),
+     * span count or lanes, hGap, vGap
+     */
+    public static final int EVENT_HELPERS = 1;
+
+    /**
+     * width, height, item count
+     */
+    public static final int EVENT_LAYOUT = 2;
+
+    /**
+     * position, measured width, measured height
+     */
+    public static final int EVENT_MEASURE = 3;
+
+    /**
+     * delta
+     */
+    public static final int EVENT_SCROLL = 4;
+
+    static final int HELPER_INTS = 14;
+
+    private static final int MAGIC = 0x564C5452;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int mCapacity;
+
+    private int[] mData = new int[64];
+
+    private int mSize = 0;
+
+    private int mOrientation = 1;
+
+    private boolean mTruncated = false;
+
+    private final List<String> mClassNames = new ArrayList<>();
+
+    private final SparseIntArray mLastWidths = new SparseIntArray();
+
+    private final SparseIntArray mLastHeights = new SparseIntArray();
+
+    /**
+     * @param capacity max ints to record, about 4 per event
+     */
+    public LayoutTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, but is " + capacity);
+        }
+        mCapacity = capacity;
+    }
+
+    public void recordOrientation(int orientation) {
+        mOrientation = orientation;
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    public void recordHelpers(@NonNull List<LayoutHelper> helpers) {
+        final int count = helpers.size();
+        if (!ensureCapacity(2 + count * HELPER_INTS)) {
+            return;
+        }
+
+        mData[mSize++] = EVENT_HELPERS;
+        mData[mSize++] = count;
+        for (LayoutHelper helper : helpers) {
+            mData[mSize++] = classIndex(helper.getClass().getName());
+            mData[mSize++] = helper.getItemCount();
+            if (helper instanceof MarginLayoutHelper) {
+                MarginLayoutHelper margin = (MarginLayoutHelper) helper;
+                mData[mSize++] = margin.getMarginLeft();
+                mData[mSize++] = margin.getMarginTop();
+                mData[mSize++] = margin.getMarginRight();
+                mData[mSize++] = margin.getMarginBottom();
+                mData[mSize++] = margin.getPaddingLeft();
+                mData[mSize++] = margin.getPaddingTop();
+                mData[mSize++] = margin.getPaddingRight();
+                mData[mSize++] = margin.getPaddingBottom();
+            } else {
+                Arrays.fill(mData, mSize, mSize + 8, 0);
+                mSize += 8;
+            }
+
+            if (helper instanceof GridLayoutHelper) {
+                GridLayoutHelper grid = (GridLayoutHelper) helper;
+                mData[mSize++] = grid.getSpanCount();
+                mData[mSize++] = grid.getHGap();
+                mData[mSize++] = grid.getVGap();
+            } else if (helper instanceof StaggeredGridLayoutHelper) {
+                StaggeredGridLayoutHelper staggered = (StaggeredGridLayoutHelper) helper;
+                mData[mSize++] = staggered.getLane();
+                mData[mSize++] = staggered.getHGap();
+                mData[mSize++] = staggered.getVGap();
+            } else {
+                mData[mSize++] = 0;
+                mData[mSize++] = 0;
+                mData[mSize++] = 0;
+            }
+        }
+        // sizes may be recorded again for the new structure
+        mLastWidths.clear();
+        mLastHeights.clear();
+    }
+
+    public void recordLayout(int width, int height, int itemCount) {
+        record(EVENT_LAYOUT, width, height, itemCount);
+    }
+
+    /**
+     * Only recorded when the size differs from the last one recorded for <code>position</code>
+     */
+    public void recordMeasure(int position, int measuredWidth, int measuredHeight) {
+        if (position < 0) {
+            return;
+        }
+        if (mLastWidths.get(position, -1) == measuredWidth && mLastHeights.get(position, -1) == measuredHeight) {
+            return;
+        }
+        if (record(EVENT_MEASURE, position, measuredWidth, measuredHeight)) {
+            mLastWidths.put(position, measuredWidth);
+            mLastHeights.put(position, measuredHeight);
+        }
+    }
+
+    public void recordScroll(int delta) {
+        if (!ensureCapacity(2)) {
+            return;
+        }
+        mData[mSize++] = EVENT_SCROLL;
+        mData[mSize++] = delta;
+    }
+
+    public boolean isTruncated() {
+        return mTruncated;
+    }
+
+    public void clear() {
+        mSize = 0;
+        mTruncated = false;
+        mClassNames.clear();
+        mLastWidths.clear();
+        mLastHeights.clear();
+    }
+
+    /**
+     * @return recorded ints, valid up to {@link #size()}
+     */
+    int[] getData() {
+        return mData;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    String getClassName(int index) {
+        return mClassNames.get(index);
+    }
+
+    public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(mOrientation);
+        out.writeInt(mClassNames.size());
+        for (int i = 0, size = mClassNames.size(); i < size; i++) {
+            out.writeUTF(mClassNames.get(i));
+        }
+        out.writeInt(mSize);
+        for (int i = 0; i < mSize; i++) {
+            out.writeInt(mData[i]);
+        }
+        out.flush();
+    }
+
+    @NonNull
+    public static LayoutTrace readFrom(@NonNull InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a layout trace");
+        }
+        final int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported layout trace version " + version);
+        }
+
+        final int orientation = in.readInt();
+        final int classCount = in.readInt();
+        if (classCount < 0) {
+            throw new IOException("broken layout trace");
+        }
+        List<String> classNames = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classNames.add(in.readUTF());
+        }
+        final int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("broken layout trace");
+        }
+
+        LayoutTrace trace = new LayoutTrace(Math.max(1, size));
+        trace.mOrientation = orientation;
+        trace.mClassNames.addAll(classNames);
+        trace.mData = new int[Math.max(1, size)];
+        for (int i = 0; i < size; i++) {
+            trace.mData[i] = in.readInt();
+        }
+        trace.mSize = size;
+        return trace;
+    }
+
+    private boolean record(int event, int a, int b, int c) {
+        if (!ensureCapacity(4)) {
+            return false;
+        }
+        mData[mSize++] = event;
+        mData[mSize++] = a;
+        mData[mSize++] = b;
+        mData[mSize++] = c;
+        return true;
+    }
+
+    private int classIndex(String className) {
+        int index = mClassNames.indexOf(className);
+        if (index < 0) {
+            index = mClassNames.size();
+            mClassNames.add(className);
+        }
+        return index;
+    }
+
+    private boolean ensureCapacity(int ints) {
+        if (mTruncated || mSize + ints > mCapacity) {
+            mTruncated = true;
+            return false;
+        }
+        if (mSize + ints > mData.length) {
+            mData = Arrays.copyOf(mData, Math.min(mCapacity, Math.max(mSize + ints, mData.length * 2)));
+        }
+        return true;
+    }
+}
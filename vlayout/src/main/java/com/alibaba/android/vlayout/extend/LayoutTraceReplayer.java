@@ -0,0 +1,237 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+import com.alibaba.android.vlayout.layout.MarginLayoutHelper;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a {@link LayoutTrace} back on a RecyclerView with a {@link VirtualLayoutManager}, using fake item views that
+ * measure to the recorded sizes. The RecyclerView does not need to be attached to a window, it is measured and laid
+ * out directly with the recorded size, so sessions can be benchmarked and profiled offline.
+ * <p>
+ * Helpers are rebuilt from their recorded configuration: known helpers get their span count, lanes and gaps back,
+ * other helpers are created with their no-arg constructor, falling back to {@link LinearLayoutHelper}.
+ */
+public class LayoutTraceReplayer {
+
+    private static final String TAG = "LayoutTraceReplayer";
+
+    public interface ReplayListener {
+        /**
+         * Called after a layout or scroll step is replayed
+         *
+         * @param event         {@link LayoutTrace#EVENT_LAYOUT} or {@link LayoutTrace#EVENT_SCROLL}
+         * @param durationNanos time spent in the step
+         */
+        void onStepReplayed(int event, long durationNanos);
+    }
+
+    private final LayoutTrace mTrace;
+
+    private final SparseIntArray mWidths = new SparseIntArray();
+
+    private final SparseIntArray mHeights = new SparseIntArray();
+
+    private int mWidth = 0;
+
+    private int mHeight = 0;
+
+    public LayoutTraceReplayer(@NonNull LayoutTrace trace) {
+        if (trace == null) {
+            throw new IllegalArgumentException("trace should not be null!");
+        }
+        mTrace = trace;
+    }
+
+    /**
+     * Create a RecyclerView with a VirtualLayoutManager of the recorded orientation and replay the whole trace on it
+     */
+    public void replay(@NonNull Context context, @Nullable ReplayListener listener) {
+        RecyclerView recyclerView = new RecyclerView(context);
+        VirtualLayoutManager layoutManager = new VirtualLayoutManager(context, mTrace.getOrientation());
+        recyclerView.setLayoutManager(layoutManager);
+        replay(recyclerView, layoutManager, listener);
+    }
+
+    /**
+     * Replay the whole trace on <code>recyclerView</code>, its adapter is replaced
+     */
+    public void replay(@NonNull RecyclerView recyclerView, @NonNull VirtualLayoutManager layoutManager,
+                       @Nullable ReplayListener listener) {
+        mWidths.clear();
+        mHeights.clear();
+        ReplayAdapter adapter = new ReplayAdapter();
+        recyclerView.setAdapter(adapter);
+
+        final int[] data = mTrace.getData();
+        final int size = mTrace.size();
+        int i = 0;
+        while (i < size) {
+            final int event = data[i];
+            switch (event) {
+                case LayoutTrace.EVENT_HELPERS:
+                    i = replayHelpers(data, i, layoutManager);
+                    break;
+                case LayoutTrace.EVENT_LAYOUT:
+                    mWidth = data[i + 1];
+                    mHeight = data[i + 2];
+                    final int itemCount = data[i + 3];
+                    i = applySizes(data, i + 4, size);
+                    if (adapter.mItemCount != itemCount) {
+                        adapter.mItemCount = itemCount;
+                        adapter.notifyDataSetChanged();
+                    }
+                    long start = System.nanoTime();
+                    recyclerView.measure(View.MeasureSpec.makeMeasureSpec(mWidth, View.MeasureSpec.EXACTLY),
+                            View.MeasureSpec.makeMeasureSpec(mHeight, View.MeasureSpec.EXACTLY));
+                    recyclerView.layout(0, 0, mWidth, mHeight);
+                    dispatchStep(listener, event, start);
+                    break;
+                case LayoutTrace.EVENT_SCROLL:
+                    final int delta = data[i + 1];
+                    i = applySizes(data, i + 2, size);
+                    start = System.nanoTime();
+                    if (layoutManager.getOrientation() == VirtualLayoutManager.VERTICAL) {
+                        recyclerView.scrollBy(0, delta);
+                    } else {
+                        recyclerView.scrollBy(delta, 0);
+                    }
+                    dispatchStep(listener, event, start);
+                    break;
+                case LayoutTrace.EVENT_MEASURE:
+                    // sizes recorded before any step
+                    i = applySizes(data, i, size);
+                    break;
+                default:
+                    Log.w(TAG, "Unknown event " + event + " at " + i + ", stop replaying");
+                    return;
+            }
+        }
+    }
+
+    private void dispatchStep(@Nullable ReplayListener listener, int event, long start) {
+        if (listener != null) {
+            listener.onStepReplayed(event, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sizes measured during a step are recorded right after it, apply them before the step is replayed
+     *
+     * @return index of the first event after the sizes
+     */
+    private int applySizes(int[] data, int i, int size) {
+        while (i < size && data[i] == LayoutTrace.EVENT_MEASURE) {
+            mWidths.put(data[i + 1], data[i + 2]);
+            mHeights.put(data[i + 1], data[i + 3]);
+            i += 4;
+        }
+        return i;
+    }
+
+    private int replayHelpers(int[] data, int i, VirtualLayoutManager layoutManager) {
+        final int count = data[i + 1];
+        i += 2;
+        List<LayoutHelper> helpers = new ArrayList<>(count);
+        for (int h = 0; h < count; h++, i += LayoutTrace.HELPER_INTS) {
+            LayoutHelper helper = createHelper(mTrace.getClassName(data[i]), data[i + 10], data[i + 11], data[i + 12]);
+            helper.setItemCount(data[i + 1]);
+            if (helper instanceof MarginLayoutHelper) {
+                MarginLayoutHelper margin = (MarginLayoutHelper) helper;
+                margin.setMargin(data[i + 2], data[i + 3], data[i + 4], data[i + 5]);
+                margin.setPadding(data[i + 6], data[i + 7], data[i + 8], data[i + 9]);
+            }
+            helpers.add(helper);
+        }
+        layoutManager.setLayoutHelpers(helpers);
+        return i;
+    }
+
+    private static LayoutHelper createHelper(String className, int spans, int hGap, int vGap) {
+        if (GridLayoutHelper.class.getName().equals(className)) {
+            GridLayoutHelper grid = new GridLayoutHelper(Math.max(1, spans));
+            grid.setHGap(hGap);
+            grid.setVGap(vGap);
+            return grid;
+        }
+        if (StaggeredGridLayoutHelper.class.getName().equals(className)) {
+            StaggeredGridLayoutHelper staggered = new StaggeredGridLayoutHelper(Math.max(1, spans));
+            staggered.setHGap(hGap);
+            staggered.setVGap(vGap);
+            return staggered;
+        }
+
+        try {
+            Class<?> clazz = Class.forName(className);
+            if (LayoutHelper.class.isAssignableFrom(clazz)) {
+                return (LayoutHelper) clazz.newInstance();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Can not create " + className + ", replay it as LinearLayoutHelper: " + e.getMessage());
+        }
+        return new LinearLayoutHelper();
+    }
+
+    private class ReplayAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        int mItemCount = 0;
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new ReplayView(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            ReplayView view = (ReplayView) holder.itemView;
+            view.setRecordedSize(mWidths.get(position, mWidth), mHeights.get(position, 0));
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+
+    private static class ReplayView extends View {
+
+        private int mRecordedWidth;
+
+        private int mRecordedHeight;
+
+        ReplayView(Context context) {
+            super(context);
+            setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+
+        void setRecordedSize(int width, int height) {
+            if (mRecordedWidth != width || mRecordedHeight != height) {
+                mRecordedWidth = width;
+                mRecordedHeight = height;
+                requestLayout();
+            }
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            setMeasuredDimension(mRecordedWidth, mRecordedHeight);
+        }
+    }
+}
@@ -54,4 +54,14 @@ public class PerformanceMonitor {
 
     }
 
+    /**
+     * Record a lookup in a view cache of LayoutManager
+     * @param cache name of the cache
+     * @param hit whether a view is returned
+     */
+    @Keep
+    public void recordCacheLookup(String cache, boolean hit) {
+
+    }
+
 }
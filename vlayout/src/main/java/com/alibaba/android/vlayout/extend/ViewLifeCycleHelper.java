@@ -1,13 +1,17 @@
 package com.alibaba.android.vlayout.extend;
 
 import android.support.annotation.NonNull;
-import android.support.v4.util.ArrayMap;
 import android.view.View;
 
+import com.alibaba.android.vlayout.R;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 
-import java.util.HashMap;
-
+/**
+ * Tracks appear/disappear status of children against the RecyclerView bounds. Status is kept in a small record
+ * tagged on each item view, so it lives and dies with the ViewHolder; callbacks are only dispatched when a child
+ * moves between the invisible, partially visible and visible zones. While children are only offset, they are not
+ * visited until the offset may have carried the closest one across a zone threshold.
+ */
 public class ViewLifeCycleHelper {
     public enum STATUS {
         APPEARING,
@@ -16,129 +20,248 @@ public class ViewLifeCycleHelper {
         DISAPPEARED
     }
 
-    private HashMap<View, STATUS> mViewStatusMap = new HashMap<>();
+    private static final int ZONE_NONE = 0;
+
+    private static final int ZONE_PARTIAL = 1;
+
+    private static final int ZONE_VISIBLE = 2;
 
     private ViewLifeCycleListener mViewLifeCycleListener;
 
     private VirtualLayoutManager mVirtualLayoutManager;
 
-    private int scrHeight;
+    private float mAppearedThreshold = 1f;
+
+    private int mLastBoundsEnd = -1;
+
+    /**
+     * How far all children can move together before any of them may cross a zone threshold, -1 if unknown
+     */
+    private int mCrossingDistance = -1;
+
+    /**
+     * Offset applied to children since last full check
+     */
+    private int mPendingOffset = 0;
 
     public ViewLifeCycleHelper(VirtualLayoutManager virtualLayoutManager, @NonNull ViewLifeCycleListener mViewLifeCycleListener) {
         this.mViewLifeCycleListener = mViewLifeCycleListener;
         this.mVirtualLayoutManager = virtualLayoutManager;
     }
 
-    public void checkViewStatusInScreen() {
-        for (int i = 0; i < mVirtualLayoutManager.getChildCount(); i++) {
-            View view = mVirtualLayoutManager.getChildAt(i);
-            if (scrHeight == 0) {
-                scrHeight = view.getContext().getResources().getDisplayMetrics().heightPixels;
-            }
+    /**
+     * Set the fraction of a child that must be inside the RecyclerView to be treated as appeared, default is 1, fully visible
+     *
+     * @param threshold value in (0, 1]
+     */
+    public void setAppearedThreshold(float threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold must be in (0, 1], but is " + threshold);
+        }
+        if (mAppearedThreshold != threshold) {
+            mAppearedThreshold = threshold;
+            // force every child to be evaluated again
+            mLastBoundsEnd = -1;
+            mCrossingDistance = -1;
+        }
+    }
 
-            if (mVirtualLayoutManager.getVirtualLayoutDirection() == VirtualLayoutManager.LayoutState.LAYOUT_END) {
-                if (view.getTop() <= 0 && view.getBottom() >= 0 && isViewReadyDisAppearing(view)) {
-                    setViewDisappearing(view);
-                } else if (view.getTop() <= scrHeight && view.getBottom() >= scrHeight && isViewReadyAppearing(view)) {
-                    setViewAppearing(view);
-                }
-            } else {
-                if (view.getTop() <= 0 && view.getBottom() >= 0 && isViewReadyAppearing(view)) {
-                    setViewAppearing(view);
-                } else if (view.getTop() <= scrHeight && view.getBottom() >= scrHeight && isViewReadyDisAppearing(view)) {
-                    setViewDisappearing(view);
-                }
-            }
+    public float getAppearedThreshold() {
+        return mAppearedThreshold;
+    }
 
-            if (view.getTop() >= 0 && view.getBottom() <= scrHeight) {
-                // fully in screen
+    /**
+     * Children are added, removed or laid out other than by an offset, the next check evaluates all of them
+     */
+    public void invalidate() {
+        mCrossingDistance = -1;
+    }
 
-                if (isViewReadyAppearing(view)) {
-                    setViewAppearing(view);
+    /**
+     * Called after all children are offset by <code>delta</code> together, or with 0 after a layout pass. Children are
+     * only evaluated once the accumulated offset may have moved one of them across a zone threshold, or after
+     * {@link #invalidate()}, so scrolling within a zone costs nothing per child.
+     */
+    public void checkViewStatusAfterOffset(int delta) {
+        mPendingOffset += delta;
+        if (Math.abs(mPendingOffset) < mCrossingDistance && getBoundsEnd() == mLastBoundsEnd) {
+            return;
+        }
+        checkViewStatusInScreen();
+    }
 
-                } else if (isViewReadyAppeared(view)) {
-                    setViewAppeared(view);
-                }
-            } else if (view.getBottom() <= 0 || view.getTop() >= scrHeight) {
-                // not in screen
-                if (isViewReadyDisAppearing(view)) {
-                    setViewDisappearing(view);
+    /**
+     * Evaluate all children
+     */
+    public void checkViewStatusInScreen() {
+        final boolean vertical = mVirtualLayoutManager.getOrientation() == VirtualLayoutManager.VERTICAL;
+        final int boundsEnd = getBoundsEnd();
+        final boolean boundsChanged = boundsEnd != mLastBoundsEnd;
+        mLastBoundsEnd = boundsEnd;
+        mPendingOffset = 0;
 
-                } else if (isViewReadyDisAppeared(view)) {
-                    setViewDisappeared(view);
-                }
+        int crossingDistance = Integer.MAX_VALUE;
+        for (int i = 0, count = mVirtualLayoutManager.getChildCount(); i < count; i++) {
+            View view = mVirtualLayoutManager.getChildAt(i);
+            if (view == null) {
+                continue;
+            }
 
+            ViewState state = obtainViewState(view);
+            final int start = vertical ? view.getTop() : view.getLeft();
+            final int end = vertical ? view.getBottom() : view.getRight();
+            crossingDistance = Math.min(crossingDistance, computeCrossingDistance(start, end, boundsEnd));
+            if (!boundsChanged && start == state.mStart && end == state.mEnd) {
+                // edges did not move, no threshold could have been crossed
+                continue;
             }
-        }
-    }
+            state.mStart = start;
+            state.mEnd = end;
 
-    private STATUS getViewStatus(View view) {
-        if (!mViewStatusMap.containsKey(view)) {
-            mViewStatusMap.put(view, STATUS.DISAPPEARED);
-            return STATUS.DISAPPEARED;
+            final int zone = computeZone(start, end, boundsEnd);
+            if (zone != state.mZone) {
+                state.mZone = zone;
+                dispatchZone(view, state, zone);
+            }
         }
-        return mViewStatusMap.get(view);
+        mCrossingDistance = crossingDistance;
     }
 
-    private void setViewstatus(View view, STATUS status) {
-        mViewStatusMap.put(view, status);
+    private int getBoundsEnd() {
+        return mVirtualLayoutManager.getOrientation() == VirtualLayoutManager.VERTICAL
+                ? mVirtualLayoutManager.getHeight() : mVirtualLayoutManager.getWidth();
     }
 
-    private boolean isViewReadyAppearing(View view) {
-        return getViewStatus(view) == STATUS.DISAPPEARED;
+    /**
+     * Zone computed by {@link #computeZone} only changes when an edge reaches 0, <code>boundsEnd</code>, or the
+     * point where the visible part reaches the threshold
+     *
+     * @return offset a child can move in either direction without changing its zone
+     */
+    private int computeCrossingDistance(int start, int end, int boundsEnd) {
+        final float thresholdSize = (end - start) * mAppearedThreshold;
+        int distance = Math.min(Math.min(Math.abs(start), Math.abs(end)),
+                Math.min(Math.abs(start - boundsEnd), Math.abs(end - boundsEnd)));
+        distance = Math.min(distance, (int) Math.abs(end - thresholdSize));
+        return Math.min(distance, (int) Math.abs(start - (boundsEnd - thresholdSize)));
     }
 
-    private void setViewAppearing(View view) {
-        if (getViewStatus(view) == STATUS.APPEARING) {
+    /**
+     * Called when a child is removed from screen, whether recycled by the layoutManager or reclaimed by the Recycler, its
+     * status is reset so a rebound holder starts from {@link STATUS#DISAPPEARED}. Calling it again for the same view is a
+     * no-op.
+     */
+    public void onViewRecycled(View view) {
+        Object tag = view.getTag(R.id.tag_view_life_cycle);
+        if (!(tag instanceof ViewState)) {
             return;
         }
 
-        setViewstatus(view, STATUS.APPEARING);
-        if (null != mViewLifeCycleListener) {
-            mViewLifeCycleListener.onAppearing(view);
+        ViewState state = (ViewState) tag;
+        if (state.mStatus == STATUS.APPEARED) {
+            setViewStatus(view, state, STATUS.DISAPPEARING);
         }
+        setViewStatus(view, state, STATUS.DISAPPEARED);
+        state.reset();
     }
 
-    private boolean isViewReadyAppeared(View view) {
-        return getViewStatus(view) == STATUS.APPEARING;
+    public STATUS getViewStatus(View view) {
+        Object tag = view.getTag(R.id.tag_view_life_cycle);
+        return tag instanceof ViewState ? ((ViewState) tag).mStatus : STATUS.DISAPPEARED;
     }
 
-    private void setViewAppeared(View view) {
-        if (getViewStatus(view) == STATUS.APPEARED) {
-            return;
+    private int computeZone(int start, int end, int boundsEnd) {
+        final int visible = Math.min(end, boundsEnd) - Math.max(start, 0);
+        final int size = end - start;
+        if (visible < 0 || (visible == 0 && size > 0)) {
+            return ZONE_NONE;
         }
-        setViewstatus(view, STATUS.APPEARED);
-        if (null != mViewLifeCycleListener) {
-            mViewLifeCycleListener.onAppeared(view);
+
+        if (visible >= size || visible >= size * mAppearedThreshold) {
+            return ZONE_VISIBLE;
         }
-    }
 
-    private boolean isViewReadyDisAppearing(View view) {
-        return getViewStatus(view) == STATUS.APPEARED;
+        return ZONE_PARTIAL;
     }
 
-    private void setViewDisappearing(View view) {
-        if (getViewStatus(view) == STATUS.DISAPPEARING) {
-            return;
+    private void dispatchZone(View view, ViewState state, int zone) {
+        switch (zone) {
+            case ZONE_VISIBLE:
+                if (state.mStatus != STATUS.APPEARED) {
+                    setViewStatus(view, state, STATUS.APPEARING);
+                    setViewStatus(view, state, STATUS.APPEARED);
+                }
+                break;
+            case ZONE_PARTIAL:
+                if (state.mStatus == STATUS.DISAPPEARED) {
+                    setViewStatus(view, state, STATUS.APPEARING);
+                } else if (state.mStatus == STATUS.APPEARED) {
+                    setViewStatus(view, state, STATUS.DISAPPEARING);
+                }
+                break;
+            default:
+                if (state.mStatus == STATUS.APPEARED) {
+                    setViewStatus(view, state, STATUS.DISAPPEARING);
+                }
+                setViewStatus(view, state, STATUS.DISAPPEARED);
+                break;
         }
+    }
 
-        setViewstatus(view, STATUS.DISAPPEARING);
-        if (null != mViewLifeCycleListener) {
-            mViewLifeCycleListener.onDisappearing(view);
+    private ViewState obtainViewState(View view) {
+        Object tag = view.getTag(R.id.tag_view_life_cycle);
+        if (tag instanceof ViewState) {
+            return (ViewState) tag;
         }
-    }
 
-    private boolean isViewReadyDisAppeared(View view) {
-        return getViewStatus(view) == STATUS.DISAPPEARING;
+        ViewState state = new ViewState();
+        view.setTag(R.id.tag_view_life_cycle, state);
+        return state;
     }
 
-    private void setViewDisappeared(View view) {
-        if (getViewStatus(view) == STATUS.DISAPPEARED) {
+    private void setViewStatus(View view, ViewState state, STATUS status) {
+        if (state.mStatus == status) {
+            return;
+        }
+
+        state.mStatus = status;
+        if (null == mViewLifeCycleListener) {
             return;
         }
-        setViewstatus(view, STATUS.DISAPPEARED);
-        if (null != mViewLifeCycleListener) {
-            mViewLifeCycleListener.onDisappeared(view);
+
+        switch (status) {
+            case APPEARING:
+                mViewLifeCycleListener.onAppearing(view);
+                break;
+            case APPEARED:
+                mViewLifeCycleListener.onAppeared(view);
+                break;
+            case DISAPPEARING:
+                mViewLifeCycleListener.onDisappearing(view);
+                break;
+            case DISAPPEARED:
+                mViewLifeCycleListener.onDisappeared(view);
+                break;
+        }
+    }
+
+    /**
+     * Per item view record, reused with the view across binds
+     */
+    static final class ViewState {
+        STATUS mStatus = STATUS.DISAPPEARED;
+
+        int mZone = ZONE_NONE;
+
+        int mStart = Integer.MIN_VALUE;
+
+        int mEnd = Integer.MIN_VALUE;
+
+        void reset() {
+            mStatus = STATUS.DISAPPEARED;
+            mZone = ZONE_NONE;
+            mStart = Integer.MIN_VALUE;
+            mEnd = Integer.MIN_VALUE;
         }
     }
 }
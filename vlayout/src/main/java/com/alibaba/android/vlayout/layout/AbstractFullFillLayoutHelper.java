@@ -33,7 +33,6 @@ import android.view.View;
 import android.view.ViewGroup.LayoutParams;
 
 import com.alibaba.android.vlayout.LayoutManagerHelper;
-import com.alibaba.android.vlayout.Range;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
 
@@ -61,7 +60,7 @@ public abstract class AbstractFullFillLayoutHelper extends BaseLayoutHelper {
         final boolean layingOutInPrimaryDirection = layoutState.getItemDirection() == LayoutStateWrapper.ITEM_DIRECTION_TAIL;
 
         int count = 0;
-        int firstPos = layingOutInPrimaryDirection ? getRange().getLower() : getRange().getUpper();
+        int firstPos = layingOutInPrimaryDirection ? getRangeStart() : getRangeEnd();
         final int curPos = layoutState.getCurrentPosition();
 
         if (layingOutInPrimaryDirection ? (curPos > firstPos) : (curPos > firstPos)) {
@@ -140,13 +139,13 @@ public abstract class AbstractFullFillLayoutHelper extends BaseLayoutHelper {
     public void checkAnchorInfo(RecyclerView.State state, VirtualLayoutManager.AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
         if (anchorInfo.layoutFromEnd) {
             if (!hasFooter) {
-                anchorInfo.position = getRange().getUpper();
+                anchorInfo.position = getRangeEnd();
             } else {
                 //keep the previously calculated position
             }
         } else {
             if (!hasHeader) {
-                anchorInfo.position = getRange().getLower();
+                anchorInfo.position = getRangeStart();
             } else {
                 //keep the previously calculated position
             }
@@ -194,23 +193,49 @@ public abstract class AbstractFullFillLayoutHelper extends BaseLayoutHelper {
 
     @Override
     public boolean isRecyclable(int childPos, int startIndex, int endIndex, LayoutManagerHelper helper, boolean fromStart) {
-        Range<Integer> range = getRange();
-        if (range.contains(childPos)) {
-            if (hasHeader && childPos == getRange().getLower()) {
+        if (childPos >= getRangeStart() && childPos <= getRangeEnd()) {
+            if (hasHeader && childPos == getRangeStart()) {
                 return true;
             }
-            if (hasFooter && childPos == getRange().getUpper()) {
+            if (hasFooter && childPos == getRangeEnd()) {
                 return true;
             }
-            Range<Integer> childRange = Range.create(range.getLower() + (hasHeader ? 1 : 0),
-                range.getUpper() - (hasFooter ? 1 : 0));
-            return Range.create(startIndex, endIndex).contains(childRange);
+            final int childStart = getRangeStart() + (hasHeader ? 1 : 0);
+            final int childEnd = getRangeEnd() - (hasFooter ? 1 : 0);
+            return startIndex <= childStart && childEnd <= endIndex;
         } else {
             Log.w(TAG, "Child item not match");
             return true;
         }
     }
 
+    @Override
+    protected boolean isRangeRecyclable() {
+        return true;
+    }
+
+    @Override
+    public int checkRangeRecyclable(int fromPos, int toPos, int startPos, int endPos, LayoutManagerHelper helper, boolean fromStart) {
+        if (!isRangeRecyclable()) {
+            return RECYCLE_EACH;
+        }
+
+        final int childStart = getRangeStart() + (hasHeader ? 1 : 0);
+        final int childEnd = getRangeEnd() - (hasFooter ? 1 : 0);
+        if (startPos <= childStart && childEnd <= endPos) {
+            return RECYCLE_ALL;
+        }
+
+        final int lower = Math.min(fromPos, toPos);
+        final int upper = Math.max(fromPos, toPos);
+        if ((hasHeader && lower <= getRangeStart() && getRangeStart() <= upper)
+            || (hasFooter && lower <= getRangeEnd() && getRangeEnd() <= upper)) {
+            // header and footer are always recyclable
+            return RECYCLE_EACH;
+        }
+        return RECYCLE_NONE;
+    }
+
     public void setHasHeader(boolean hasHeader) {
         this.hasHeader = hasHeader;
     }
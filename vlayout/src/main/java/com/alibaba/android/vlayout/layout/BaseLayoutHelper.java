@@ -47,6 +47,12 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
     public static boolean DEBUG = false;
 
+    /**
+     * Whether vertical layouts read child measurements from {@link VirtualLayoutManager} directly instead of dispatching
+     * through {@link OrientationHelperEx}, only switched off to benchmark the generic path
+     */
+    static boolean sVerticalFastPath = true;
+
     protected Rect mLayoutRegion = new Rect();
 
     View mLayoutView;
@@ -59,6 +65,34 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
     }
 
+    /**
+     * Pick the measurement path once per chunk
+     *
+     * @return layoutManager to read vertical measurements from, or null to go through {@link OrientationHelperEx}
+     */
+    @Nullable
+    static VirtualLayoutManager getVerticalFastPath(LayoutManagerHelper helper, boolean layoutInVertical) {
+        return sVerticalFastPath && layoutInVertical && helper instanceof VirtualLayoutManager
+                ? (VirtualLayoutManager) helper : null;
+    }
+
+    /**
+     * Same as {@link OrientationHelperEx#getDecoratedMeasurement(View)} of a vertical layout
+     */
+    static int getDecoratedHeight(VirtualLayoutManager layoutManager, View view, boolean isOverLapMargin) {
+        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) view.getLayoutParams();
+        final int height = layoutManager.getDecoratedMeasuredHeight(view);
+        return isOverLapMargin ? height : height + params.topMargin + params.bottomMargin;
+    }
+
+    /**
+     * Same as {@link OrientationHelperEx#getDecoratedMeasurementInOther(View)} of a vertical layout
+     */
+    static int getDecoratedWidth(VirtualLayoutManager layoutManager, View view) {
+        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) view.getLayoutParams();
+        return layoutManager.getDecoratedMeasuredWidth(view) + params.leftMargin + params.rightMargin;
+    }
+
     @Override
     public boolean isFixLayout() {
         return false;
@@ -183,8 +217,9 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
 
             if (!mLayoutRegion.isEmpty()) {
+                final boolean layoutInVertical = helper.getOrientation() == VirtualLayoutManager.VERTICAL;
                 if (isValidScrolled(scrolled)) {
-                    if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
+                    if (layoutInVertical) {
                         mLayoutRegion.offset(0, -scrolled);
                     } else {
                         mLayoutRegion.offset(-scrolled, 0);
@@ -192,7 +227,7 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
                 }
                 int contentWidth = helper.getContentWidth();
                 int contentHeight = helper.getContentHeight();
-                if (helper.getOrientation() == VirtualLayoutManager.VERTICAL ?
+                if (layoutInVertical ?
                         mLayoutRegion.intersects(0, -contentHeight / 4, contentWidth, contentHeight + contentHeight / 4) :
                         mLayoutRegion.intersects(-contentWidth / 4, 0, contentWidth + contentWidth / 4, contentHeight)) {
 
@@ -201,7 +236,7 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
                         helper.addOffFlowView(mLayoutView, true);
                     }
                     //finally fix layoutRegion's height and with here to avoid visual blank
-                    if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
+                    if (layoutInVertical) {
                         mLayoutRegion.left = helper.getPaddingLeft() + mMarginLeft;
                         mLayoutRegion.right = helper.getContentWidth() - helper.getPaddingRight() - mMarginRight;
                     } else {
@@ -236,16 +271,17 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
             View refer = null;
             Rect tempRect = new Rect();
             final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
-            for (int i = 0; i < helper.getChildCount(); i++) {
+            final boolean layoutInVertical = helper.getOrientation() == VirtualLayoutManager.VERTICAL;
+            for (int i = 0, childCount = helper.getChildCount(); i < childCount; i++) {
                 refer = helper.getChildAt(i);
                 int anchorPos = helper.getPosition(refer);
-                if (getRange().contains(anchorPos)) {
+                if (anchorPos >= getRangeStart() && anchorPos <= getRangeEnd()) {
                     if (refer.getVisibility() == View.GONE) {
                         tempRect.setEmpty();
                     } else {
                         final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams)
                             refer.getLayoutParams();
-                        if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
+                        if (layoutInVertical) {
                             tempRect.union(helper.getDecoratedLeft(refer) - params.leftMargin,
                                 orientationHelper.getDecoratedStart(refer),
                                 helper.getDecoratedRight(refer) + params.rightMargin,
@@ -246,9 +246,9 @@ public class ColumnLayoutHelper extends AbstractFullFillLayoutHelper {
     @Override
     public void checkAnchorInfo(RecyclerView.State state, VirtualLayoutManager.AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
         if (anchorInfo.layoutFromEnd) {
-            anchorInfo.position = getRange().getUpper();
+            anchorInfo.position = getRangeEnd();
         } else {
-            anchorInfo.position = getRange().getLower();
+            anchorInfo.position = getRangeStart();
         }
     }
 }
@@ -34,7 +34,6 @@ import android.support.annotation.NonNull;
 import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
-import android.util.SparseIntArray;
 import android.view.View;
 import android.widget.TextView;
 
@@ -67,6 +66,10 @@ public class GridLayoutHelper extends BaseLayoutHelper {
 
     private boolean mIgnoreExtra = false;
 
+    private boolean mUniformRowHeight = false;
+
+    private int mAvoidedMeasureCount = 0;
+
     @NonNull
     private SpanSizeLookup mSpanSizeLookup = new DefaultSpanSizeLookup();
 
@@ -77,6 +80,15 @@ public class GridLayoutHelper extends BaseLayoutHelper {
     private float[] mWeights = new float[0];
 
 
+    /**
+     * used instead of the shared buffers when laid out by a LayoutManagerHelper other than VirtualLayoutManager
+     */
+    private SpanBuffers mOwnSpanBuffers;
+
+    /*
+     * the following arrays are borrowed from the LayoutManager's shared SpanBuffers in each layoutViews
+     */
+
     private View[] mSet;
 
     /**
@@ -89,6 +101,16 @@ public class GridLayoutHelper extends BaseLayoutHelper {
      */
     private int[] mSpanCols;
 
+    /**
+     * whether the view is measured with the size of its row directly
+     */
+    private boolean[] mMeasureDeferred;
+
+    /**
+     * decorated size of each view along the main axis, so the second pass does not ask for it again
+     */
+    private int[] mMeasuredSizes;
+
     /**
      * @param spanCount number of columns/rows in grid, must be greater than 0
      */
@@ -149,6 +171,32 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         this.mIgnoreExtra = ignoreExtra;
     }
 
+    /**
+     * Set whether views of the same view type in a row share the same size, if true only the first view of each
+     * view type in a row is measured freely, others are measured once with the size of the row.
+     *
+     * @param uniformRowHeight whether views in a row share the same size
+     */
+    public void setUniformRowHeight(boolean uniformRowHeight) {
+        this.mUniformRowHeight = uniformRowHeight;
+    }
+
+    public boolean isUniformRowHeight() {
+        return mUniformRowHeight;
+    }
+
+    /**
+     * @return how many second measures are avoided by {@link #setUniformRowHeight(boolean)} since last reset, that is
+     * views which would be measured freely and then again with the size of row
+     */
+    public int getAvoidedMeasureCount() {
+        return mAvoidedMeasureCount;
+    }
+
+    public void resetAvoidedMeasureCount() {
+        mAvoidedMeasureCount = 0;
+    }
+
 
     /**
      * {@inheritDoc}
@@ -167,8 +215,6 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         }
         mSpanCount = spanCount;
         mSpanSizeLookup.invalidateSpanIndexCache();
-
-        ensureSpanCount();
     }
 
     public int getVGap() {
@@ -191,8 +237,9 @@ public class GridLayoutHelper extends BaseLayoutHelper {
      */
     @Override
     public void onRangeChange(int start, int end) {
+        // moving start position drops the whole cache, otherwise only positions out of range are dropped
         mSpanSizeLookup.setStartPosition(start);
-        mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanIndexCache(end + 1);
     }
 
 
@@ -229,6 +276,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
 
         final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+        final VirtualLayoutManager verticalLayoutManager = getVerticalFastPath(helper, layoutInVertical);
 
         if (layoutInVertical) {
             mTotalSize = helper.getContentWidth() - helper.getPaddingRight() - helper.getPaddingLeft() - getHorizontalMargin() - getHorizontalPadding();
@@ -244,7 +292,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         int remainingSpan = mSpanCount;
 
 
-        ensureSpanCount();
+        ensureSpanCount(helper);
 
 
         if (!layingOutInPrimaryDirection) {
@@ -277,11 +325,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                         break;
 
                     if (!isStartLine) {
-                        isStartLine = helper.getReverseLayout() ? index == getRange().getUpper() : index == getRange().getLower();
+                        isStartLine = helper.getReverseLayout() ? index == getRangeEnd() : index == getRangeStart();
                     }
 
                     if (!isEndLine) {
-                        isEndLine = helper.getReverseLayout() ? index == getRange().getLower() : index == getRange().getUpper();
+                        isEndLine = helper.getReverseLayout() ? index == getRangeStart() : index == getRangeEnd();
                     }
 
                     revRemainingSpan -= spanSize;
@@ -333,11 +381,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             }
 
             if (!isStartLine) {
-                isStartLine = helper.getReverseLayout() ? pos == getRange().getUpper().intValue() : pos == getRange().getLower().intValue();
+                isStartLine = helper.getReverseLayout() ? pos == getRangeEnd() : pos == getRangeStart();
             }
 
             if (!isEndLine) {
-                isEndLine = helper.getReverseLayout() ? pos == getRange().getLower().intValue() : pos == getRange().getUpper().intValue();
+                isEndLine = helper.getReverseLayout() ? pos == getRangeStart() : pos == getRangeEnd();
             }
 
             consumedSpanCount += spanSize;
@@ -413,6 +461,14 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             View view = mSet[i];
             helper.addChildView(layoutState, view, layingOutInPrimaryDirection ? -1 : 0);
 
+            final int representative = mUniformRowHeight ? findRepresentative(i, helper) : -1;
+            if (representative >= 0) {
+                // measured with the size of row later, assume the size its representative measured
+                mMeasureDeferred[i] = true;
+                mMeasuredSizes[i] = mMeasuredSizes[representative];
+                continue;
+            }
+
             int spanSize = getSpanSize(recycler, state, helper.getPosition(view)), spec;
             if (weighted) {
                 final int index = mSpanIndices[i];
@@ -429,7 +485,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             }
             final VirtualLayoutManager.LayoutParams lp = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
 
-            if (helper.getOrientation() == VERTICAL) {
+            if (layoutInVertical) {
                 helper.measureChildWithMargins(view, spec, getMainDirSpec(lp.height, mTotalSize,
                     View.MeasureSpec.getSize(spec), lp.mAspectRatio));
             } else {
@@ -437,7 +493,10 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                     getMainDirSpec(lp.width, mTotalSize, View.MeasureSpec.getSize(spec),
                         lp.mAspectRatio), View.MeasureSpec.getSize(spec));
             }
-            final int size = orientationHelper.getDecoratedMeasurement(view);
+            final int size = verticalLayoutManager != null
+                ? getDecoratedHeight(verticalLayoutManager, view, isOverLapMargin)
+                : orientationHelper.getDecoratedMeasurement(view);
+            mMeasuredSizes[i] = size;
             if (size > maxSize) {
                 maxSize = size;
             }
@@ -447,7 +506,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         final int maxMeasureSpec = getMainDirSpec(maxSize, mTotalSize, 0, Float.NaN);
         for (int i = 0; i < count; i++) {
             final View view = mSet[i];
-            if (orientationHelper.getDecoratedMeasurement(view) != maxSize) {
+            if (mMeasureDeferred[i] || mMeasuredSizes[i] != maxSize) {
+                if (mMeasureDeferred[i] && mMeasuredSizes[i] != maxSize) {
+                    // measured freely first, it would be measured twice
+                    mAvoidedMeasureCount++;
+                }
                 int spanSize = getSpanSize(recycler, state, helper.getPosition(view)), spec;
                 if (weighted) {
                     final int index = mSpanIndices[i];
@@ -463,7 +526,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                         View.MeasureSpec.EXACTLY);
                 }
 
-                if (helper.getOrientation() == VERTICAL) {
+                if (layoutInVertical) {
                     helper.measureChildWithMargins(view, spec, maxMeasureSpec);
                 } else {
                     helper.measureChildWithMargins(view, maxMeasureSpec, spec);
@@ -524,7 +587,8 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                     left = helper.getPaddingLeft() + mMarginLeft + mPaddingLeft + mSizePerSpan * index + index * mHGap;
                 }
 
-                right = left + orientationHelper.getDecoratedMeasurementInOther(view);
+                right = left + (verticalLayoutManager != null ? getDecoratedWidth(verticalLayoutManager, view)
+                    : orientationHelper.getDecoratedMeasurementInOther(view));
             } else {
 
                 if (weighted) {
@@ -563,6 +627,32 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         Arrays.fill(mSet, null);
         Arrays.fill(mSpanIndices, 0);
         Arrays.fill(mSpanCols, 0);
+        Arrays.fill(mMeasureDeferred, false);
+    }
+
+    /**
+     * Whether a measured view with the same view type exists before <code>index</code> in current row
+     */
+    /**
+     * @return index of the first freely measured view in the row with the same view type, -1 if there is none
+     */
+    private int findRepresentative(int index, LayoutManagerHelper helper) {
+        final int viewType = getItemViewType(mSet[index], helper);
+        if (viewType == RecyclerView.INVALID_TYPE) {
+            return -1;
+        }
+
+        for (int i = 0; i < index; i++) {
+            if (!mMeasureDeferred[i] && getItemViewType(mSet[i], helper) == viewType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int getItemViewType(View view, LayoutManagerHelper helper) {
+        RecyclerView.ViewHolder holder = helper.getChildViewHolder(view);
+        return holder == null ? RecyclerView.INVALID_TYPE : holder.getItemViewType();
     }
 
 
@@ -595,6 +685,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         mSpanSizeLookup.invalidateSpanIndexCache();
     }
 
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        mSpanSizeLookup.invalidateSpanIndexCache(positionStart);
+    }
+
     private static final int MAIN_DIR_SPEC =
             View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
 
@@ -611,19 +706,23 @@ public class GridLayoutHelper extends BaseLayoutHelper {
     }
 
 
-    private void ensureSpanCount() {
-
-        if (mSet == null || mSet.length != mSpanCount) {
-            mSet = new View[mSpanCount];
-        }
-
-        if (mSpanIndices == null || mSpanIndices.length != mSpanCount) {
-            mSpanIndices = new int[mSpanCount];
+    private void ensureSpanCount(LayoutManagerHelper helper) {
+        final SpanBuffers buffers;
+        if (helper instanceof VirtualLayoutManager) {
+            buffers = ((VirtualLayoutManager) helper).getSpanBuffers();
+        } else {
+            if (mOwnSpanBuffers == null) {
+                mOwnSpanBuffers = new SpanBuffers();
+            }
+            buffers = mOwnSpanBuffers;
         }
+        buffers.ensureSpanCount(mSpanCount);
 
-        if (mSpanCols == null || mSpanCols.length != mSpanCount) {
-            mSpanCols = new int[mSpanCount];
-        }
+        mSet = buffers.mSet;
+        mSpanIndices = buffers.mSpanIndices;
+        mSpanCols = buffers.mSpanCols;
+        mMeasureDeferred = buffers.mMeasureDeferred;
+        mMeasuredSizes = buffers.mMeasuredSizes;
     }
 
 
@@ -634,7 +733,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         if (state.getItemCount() > 0 && !state.isPreLayout()) {
             int span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
             if (anchorInfo.layoutFromEnd) {
-                while (span < mSpanCount - 1 && anchorInfo.position < getRange().getUpper()) {
+                while (span < mSpanCount - 1 && anchorInfo.position < getRangeEnd()) {
                     anchorInfo.position++;
                     span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
                 }
@@ -648,7 +747,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             mLayoutWithAnchor = true;
 
 /*
-            if (anchorInfo.position == getRange().getLower() || anchorInfo.position == getRange().getUpper()) {
+            if (anchorInfo.position == getRangeStart() || anchorInfo.position == getRangeEnd()) {
                 return;
             }
 
@@ -712,19 +811,40 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             spanDiff = 1;
         }
 
+        // span index without RTL, rows laid out to end are cached as they are already computed
+        int cacheSpan = 0;
+        final boolean cacheSpans = layingOutInPrimaryDirection && !state.isPreLayout();
+
         for (int i = start; i != end; i += diff) {
             View view = mSet[i];
-            int spanSize = getSpanSize(recycler, state, helper.getPosition(view));
+            final int position = helper.getPosition(view);
+            int spanSize = getSpanSize(recycler, state, position);
             if (spanDiff == -1 && spanSize > 1) {
                 mSpanIndices[i] = span - (spanSize - 1);
             } else {
                 mSpanIndices[i] = span;
             }
             span += spanDiff * spanSize;
+
+            if (cacheSpans) {
+                mSpanSizeLookup.cacheSpanIndex(position, cacheSpan, mSpanCount);
+            }
+            cacheSpan += spanSize;
         }
     }
 
 
+    @Override
+    protected boolean isRangeRecyclable() {
+        // children are always recyclable
+        return true;
+    }
+
+    @Override
+    public int checkRangeRecyclable(int fromPos, int toPos, int startPos, int endPos, LayoutManagerHelper helper, boolean fromStart) {
+        return isRangeRecyclable() ? RECYCLE_ALL : RECYCLE_EACH;
+    }
+
     static final class DefaultSpanSizeLookup extends SpanSizeLookup {
 
         @Override
@@ -741,7 +861,24 @@ public class GridLayoutHelper extends BaseLayoutHelper {
 
     public static abstract class SpanSizeLookup {
 
-        final SparseIntArray mSpanIndexCache = new SparseIntArray();
+        private static final int MIN_CACHE_SIZE = 16;
+
+        /**
+         * span index of position <code>mStartPosition + i</code>, only the first {@link #mCachedCount} items are valid
+         */
+        int[] mSpanIndexCache = new int[0];
+
+        /**
+         * span group index of position <code>mStartPosition + i</code>, counted from <code>mStartPosition</code>
+         */
+        int[] mSpanGroupCache = new int[0];
+
+        /**
+         * Spans are always computed from <code>mStartPosition</code>, so the cache is a valid prefix of this length
+         */
+        int mCachedCount = 0;
+
+        private int mCachedSpanCount = -1;
 
         private boolean mCacheSpanIndices = false;
 
@@ -767,6 +904,10 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         }
 
         public void setStartPosition(int startPosition) {
+            if (startPosition != mStartPosition) {
+                // all cached spans are relative to start position
+                mCachedCount = 0;
+            }
             this.mStartPosition = startPosition;
         }
 
@@ -779,7 +920,19 @@ public class GridLayoutHelper extends BaseLayoutHelper {
          * adapter changes occur.
          */
         public void invalidateSpanIndexCache() {
-            mSpanIndexCache.clear();
+            mCachedCount = 0;
+        }
+
+        /**
+         * Clears cached span indices from <code>position</code>, items before it keep their spans.
+         *
+         * @param position the first position whose span may change
+         */
+        public void invalidateSpanIndexCache(int position) {
+            final int offset = position - mStartPosition;
+            if (offset < mCachedCount) {
+                mCachedCount = Math.max(0, offset);
+            }
         }
 
         /**
@@ -792,16 +945,67 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         }
 
         int getCachedSpanIndex(int position, int spanCount) {
-            if (!mCacheSpanIndices) {
+            final int offset = position - mStartPosition;
+            if (!mCacheSpanIndices || offset < 0) {
                 return getSpanIndex(position, spanCount);
             }
-            final int existing = mSpanIndexCache.get(position, -1);
-            if (existing != -1) {
-                return existing;
+            if (spanCount != mCachedSpanCount) {
+                mCachedSpanCount = spanCount;
+                mCachedCount = 0;
+            }
+            if (offset < mCachedCount) {
+                return mSpanIndexCache[offset];
             }
-            final int value = getSpanIndex(position, spanCount);
-            mSpanIndexCache.put(position, value);
-            return value;
+
+            // fill the gap lazily, each item is computed from the previous one
+            ensureCacheSize(offset + 1);
+            for (int i = mCachedCount; i <= offset; i++) {
+                appendSpanIndex(getSpanIndex(mStartPosition + i, spanCount));
+            }
+            return mSpanIndexCache[offset];
+        }
+
+        /**
+         * Record the span index that is already computed during layout, it only extends the cache when
+         * <code>position</code> is exactly the next uncached one.
+         */
+        void cacheSpanIndex(int position, int spanIndex, int spanCount) {
+            if (!mCacheSpanIndices) {
+                return;
+            }
+            if (spanCount != mCachedSpanCount) {
+                mCachedSpanCount = spanCount;
+                mCachedCount = 0;
+            }
+            if (position - mStartPosition != mCachedCount) {
+                return;
+            }
+            ensureCacheSize(mCachedCount + 1);
+            appendSpanIndex(spanIndex);
+        }
+
+        private void appendSpanIndex(int spanIndex) {
+            final int offset = mCachedCount;
+            mSpanIndexCache[offset] = spanIndex;
+            if (offset == 0) {
+                mSpanGroupCache[offset] = 0;
+            } else {
+                // only the first item of a row/column starts from span 0
+                mSpanGroupCache[offset] = mSpanGroupCache[offset - 1] + (spanIndex == 0 ? 1 : 0);
+            }
+            mCachedCount = offset + 1;
+        }
+
+        private void ensureCacheSize(int size) {
+            if (mSpanIndexCache.length >= size) {
+                return;
+            }
+            int len = Math.max(mSpanIndexCache.length, MIN_CACHE_SIZE);
+            while (len < size) {
+                len *= 2;
+            }
+            mSpanIndexCache = Arrays.copyOf(mSpanIndexCache, len);
+            mSpanGroupCache = Arrays.copyOf(mSpanGroupCache, len);
         }
 
         /**
@@ -835,10 +1039,10 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             int span = 0;
             int startPos = mStartPosition;
             // If caching is enabled, try to jump
-            if (mCacheSpanIndices && mSpanIndexCache.size() > 0) {
+            if (mCacheSpanIndices && mCachedCount > 0) {
                 int prevKey = findReferenceIndexFromCache(position);
                 if (prevKey >= 0) {
-                    span = mSpanIndexCache.get(prevKey) + getSpanSize(prevKey);
+                    span = mSpanIndexCache[prevKey - mStartPosition] + getSpanSize(prevKey);
                     startPos = prevKey + 1;
                 }
             }
@@ -859,21 +1063,10 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         }
 
         int findReferenceIndexFromCache(int position) {
-            int lo = 0;
-            int hi = mSpanIndexCache.size() - 1;
-
-            while (lo <= hi) {
-                final int mid = (lo + hi) >>> 1;
-                final int midVal = mSpanIndexCache.keyAt(mid);
-                if (midVal < position) {
-                    lo = mid + 1;
-                } else {
-                    hi = mid - 1;
-                }
-            }
-            int index = lo - 1;
-            if (index >= 0 && index < mSpanIndexCache.size()) {
-                return mSpanIndexCache.keyAt(index);
+            // cache is a prefix, so the reference is the closest cached position before position
+            final int offset = Math.min(position - mStartPosition, mCachedCount) - 1;
+            if (offset >= 0) {
+                return mStartPosition + offset;
             }
             return -1;
         }
@@ -882,17 +1075,24 @@ public class GridLayoutHelper extends BaseLayoutHelper {
          * Returns the index of the group this position belongs.
          * <p/>
          * For example, if grid has 3 columns and each item occupies 1 span, span group index
-         * for item 1 will be 0, item 5 will be 1.
+         * for item 1 will be 0, item 5 will be 1. Groups are counted from start position, and are
+         * backed by the span index cache when it is enabled.
          *
          * @param adapterPosition The position in adapter
          * @param spanCount       The total number of spans in the grid
          * @return The index of the span group including the item at the given adapter position
          */
         public int getSpanGroupIndex(int adapterPosition, int spanCount) {
+            final int offset = adapterPosition - mStartPosition;
+            if (mCacheSpanIndices && offset >= 0) {
+                getCachedSpanIndex(adapterPosition, spanCount);
+                return mSpanGroupCache[offset];
+            }
+
             int span = 0;
             int group = 0;
             int positionSpanSize = getSpanSize(adapterPosition);
-            for (int i = 0; i < adapterPosition; i++) {
+            for (int i = mStartPosition; i < adapterPosition; i++) {
                 int size = getSpanSize(i);
                 span += size;
                 if (span == spanCount) {
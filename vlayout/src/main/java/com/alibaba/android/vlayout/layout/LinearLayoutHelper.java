@@ -74,6 +74,14 @@ public class LinearLayoutHelper extends BaseLayoutHelper {
         this.mDividerHeight = dividerHeight;
     }
 
+    /**
+     * Get and add the view for current position of <code>layoutState</code>, subclasses may supply a view they already hold
+     */
+    protected View nextChildView(RecyclerView.Recycler recycler, VirtualLayoutManager.LayoutStateWrapper layoutState,
+                                 LayoutManagerHelper helper, LayoutChunkResult result) {
+        return nextView(recycler, layoutState, helper, result);
+    }
+
     /**
      * In {@link LinearLayoutHelper}, each iteration only consume one item,
      * so it can let parent LayoutManager to decide whether the next item is in the range of this helper
@@ -89,7 +97,7 @@ public class LinearLayoutHelper extends BaseLayoutHelper {
         int currentPosition = layoutState.getCurrentPosition();
 
         // find corresponding layout container
-        View view = nextView(recycler, layoutState, helper, result);
+        View view = nextChildView(recycler, layoutState, helper, result);
         if (view == null) {
             return;
         }
@@ -101,11 +109,11 @@ public class LinearLayoutHelper extends BaseLayoutHelper {
         int startSpace = 0, endSpace = 0, gap = 0;
         boolean isLayoutEnd = layoutState.getLayoutDirection() == VirtualLayoutManager.LayoutStateWrapper.LAYOUT_END;
         boolean isStartLine = isLayoutEnd
-                ? currentPosition == getRange().getLower().intValue()
-                : currentPosition == getRange().getUpper().intValue();
+                ? currentPosition == getRangeStart()
+                : currentPosition == getRangeEnd();
         boolean isEndLine = isLayoutEnd
-                ? currentPosition == getRange().getUpper().intValue()
-                : currentPosition == getRange().getLower().intValue();
+                ? currentPosition == getRangeEnd()
+                : currentPosition == getRangeStart();
 
         if (isStartLine) {
             startSpace = computeStartSpace(helper, layoutInVertical, isLayoutEnd, isOverLapMargin);
@@ -166,41 +174,51 @@ public class LinearLayoutHelper extends BaseLayoutHelper {
             helper.measureChild(view, widthSpec, heightSpec);
         }
 
-        OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
-        result.mConsumed = orientationHelper.getDecoratedMeasurement(view) + startSpace + endSpace + gap;
+        // each measurement is read once, they are not free for a decorated child
+        final int measurement, measurementInOther;
+        final VirtualLayoutManager verticalLayoutManager = getVerticalFastPath(helper, layoutInVertical);
+        if (verticalLayoutManager != null) {
+            measurement = getDecoratedHeight(verticalLayoutManager, view, isOverLapMargin);
+            measurementInOther = getDecoratedWidth(verticalLayoutManager, view);
+        } else {
+            OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+            measurement = orientationHelper.getDecoratedMeasurement(view);
+            measurementInOther = orientationHelper.getDecoratedMeasurementInOther(view);
+        }
+        result.mConsumed = measurement + startSpace + endSpace + gap;
         int left, top, right, bottom;
-        if (helper.getOrientation() == VERTICAL) {
+        if (layoutInVertical) {
             // not support RTL now
             if (helper.isDoLayoutRTL()) {
                 right = helper.getContentWidth() - helper.getPaddingRight() - mMarginRight - mPaddingRight;
-                left = right - orientationHelper.getDecoratedMeasurementInOther(view);
+                left = right - measurementInOther;
             } else {
                 left = helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
-                right = left + orientationHelper.getDecoratedMeasurementInOther(view);
+                right = left + measurementInOther;
             }
 
             // whether this layout pass is layout to start or to end
-            if (layoutState.getLayoutDirection() == VirtualLayoutManager.LayoutStateWrapper.LAYOUT_START) {
+            if (!isLayoutEnd) {
                 // fill start, from bottom to top
                 bottom = layoutState.getOffset() - startSpace - (isStartLine ? 0 : gap);
-                top = bottom - orientationHelper.getDecoratedMeasurement(view);
+                top = bottom - measurement;
             } else {
                 // fill end, from top to bottom
                 top = layoutState.getOffset() + startSpace + (isStartLine ? 0 : gap);
-                bottom = top + orientationHelper.getDecoratedMeasurement(view);
+                bottom = top + measurement;
             }
         } else {
             top = helper.getPaddingTop() + mMarginTop + mPaddingTop;
-            bottom = top + orientationHelper.getDecoratedMeasurementInOther(view);
+            bottom = top + measurementInOther;
 
-            if (layoutState.getLayoutDirection() == VirtualLayoutManager.LayoutStateWrapper.LAYOUT_START) {
+            if (!isLayoutEnd) {
                 // fill left, from right to left
                 right = layoutState.getOffset() - startSpace - (isStartLine ? 0 : gap);
-                left = right - orientationHelper.getDecoratedMeasurement(view);
+                left = right - measurement;
             } else {
                 // fill right, from left to right
                 left = layoutState.getOffset() + startSpace + (isStartLine ? 0 : gap);
-                right = left + orientationHelper.getDecoratedMeasurement(view);
+                right = left + measurement;
             }
         }
         // We calculate everything with View's bounding box (which includes decor and margins)
@@ -240,5 +258,14 @@ public class LinearLayoutHelper extends BaseLayoutHelper {
         return super.computeAlignOffset(offset, isLayoutEnd, useAnchor, helper);
     }
 
+    @Override
+    protected boolean isRangeRecyclable() {
+        // children are always recyclable
+        return true;
+    }
 
+    @Override
+    public int checkRangeRecyclable(int fromPos, int toPos, int startPos, int endPos, LayoutManagerHelper helper, boolean fromStart) {
+        return isRangeRecyclable() ? RECYCLE_ALL : RECYCLE_EACH;
+    }
 }
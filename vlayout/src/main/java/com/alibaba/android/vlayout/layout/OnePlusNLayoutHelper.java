@@ -181,7 +181,7 @@ public class OnePlusNLayoutHelper extends AbstractFullFillLayoutHelper {
             + getVerticalMargin() + getVerticalPadding();
 
         final int currentPosition = layoutState.getCurrentPosition();
-        if (hasHeader && currentPosition == getRange().getLower()) {
+        if (hasHeader && currentPosition == getRangeStart()) {
             View header = nextView(recycler, layoutState, helper, result);
             int headerConsumed = handleHeader(header, layoutState, result, helper, layoutInVertical, parentWidth, parentHeight,
                 parentHPadding, parentVPadding);
@@ -212,7 +212,7 @@ public class OnePlusNLayoutHelper extends AbstractFullFillLayoutHelper {
             }
             result.mConsumed = headerConsumed;
             handleStateOnResult(result, header);
-        } else if (hasFooter && currentPosition == getRange().getUpper()) {
+        } else if (hasFooter && currentPosition == getRangeEnd()) {
             View footer = nextView(recycler, layoutState, helper, result);
             int footerConsumed = handleFooter(footer, layoutState, result, helper, layoutInVertical, parentWidth, parentHeight,
                 parentHPadding, parentVPadding);
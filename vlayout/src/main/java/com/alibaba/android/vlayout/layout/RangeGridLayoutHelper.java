@@ -256,7 +256,7 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         int consumedSpanCount = 0;
         int remainingSpan = rangeStyle.mSpanCount;
 
-        rangeStyle.ensureSpanCount();
+        rangeStyle.ensureSpanCount(helper);
 
         if (!layingOutInPrimaryDirection) {
             // fill the remaining spacing this row
@@ -734,6 +734,11 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         mRangeStyle.onInvalidateSpanIndexCache();
     }
 
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        mRangeStyle.onInvalidateSpanIndexCache(positionStart);
+    }
+
     private static final int MAIN_DIR_SPEC =
         View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
 
@@ -757,7 +762,7 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
             GridRangeStyle rangeStyle = mRangeStyle.findRangeStyleByPosition(anchorInfo.position);
             int span = rangeStyle.mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, rangeStyle.mSpanCount);
             if (anchorInfo.layoutFromEnd) {
-                while (span < rangeStyle.mSpanCount - 1 && anchorInfo.position < getRange().getUpper()) {
+                while (span < rangeStyle.mSpanCount - 1 && anchorInfo.position < getRangeEnd()) {
                     anchorInfo.position++;
                     span = rangeStyle.mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, rangeStyle.mSpanCount);
                 }
@@ -771,7 +776,7 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
             mLayoutWithAnchor = true;
 
 /*
-            if (anchorInfo.position == getRange().getLower() || anchorInfo.position == getRange().getUpper()) {
+            if (anchorInfo.position == getRangeStart() || anchorInfo.position == getRangeEnd()) {
                 return;
             }
 
@@ -835,20 +840,30 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
             spanDiff = 1;
         }
 
+        // span index without RTL, rows laid out to end are cached as they are already computed
+        int cacheSpan = 0;
+        final boolean cacheSpans = layingOutInPrimaryDirection && !state.isPreLayout();
+
         for (int i = start; i != end; i += diff) {
             View view = rangeStyle.mSet[i];
-            int spanSize = getSpanSize(rangeStyle.mSpanSizeLookup, recycler, state, helper.getPosition(view));
+            final int position = helper.getPosition(view);
+            int spanSize = getSpanSize(rangeStyle.mSpanSizeLookup, recycler, state, position);
             if (spanDiff == -1 && spanSize > 1) {
                 rangeStyle.mSpanIndices[i] = span - (spanSize - 1);
             } else {
                 rangeStyle.mSpanIndices[i] = span;
             }
             span += spanDiff * spanSize;
+
+            if (cacheSpans) {
+                rangeStyle.mSpanSizeLookup.cacheSpanIndex(position, cacheSpan, rangeStyle.mSpanCount);
+            }
+            cacheSpan += spanSize;
         }
     }
 
     public int getBorderStartSpace(LayoutManagerHelper helper) {
-        int start = getRange().getLower().intValue();
+        int start = getRangeStart();
         RangeStyle rangeStyle = mRangeStyle.findRangeStyleByPosition(start);
         if (helper.getOrientation() == VERTICAL) {
             return rangeStyle.getFamilyMarginTop() + rangeStyle.getFamilyPaddingTop();
@@ -858,7 +873,7 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
     }
 
     public int getBorderEndSpace(LayoutManagerHelper helper) {
-        int end = getRange().getUpper().intValue();
+        int end = getRangeEnd();
         RangeStyle rangeStyle = mRangeStyle.findRangeStyleByPosition(end);
         if (helper.getOrientation() == VERTICAL) {
             return rangeStyle.getFamilyMarginBottom() + rangeStyle.getFamilyPaddingBottom();
@@ -867,6 +882,17 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         }
     }
 
+    @Override
+    protected boolean isRangeRecyclable() {
+        // children are always recyclable
+        return true;
+    }
+
+    @Override
+    public int checkRangeRecyclable(int fromPos, int toPos, int startPos, int endPos, LayoutManagerHelper helper, boolean fromStart) {
+        return isRangeRecyclable() ? RECYCLE_ALL : RECYCLE_EACH;
+    }
+
     public static class GridRangeStyle extends RangeStyle<GridRangeStyle> {
 
         private float mAspectRatio = Float.NaN;
@@ -889,6 +915,15 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
 
         private float[] mWeights = new float[0];
 
+        /**
+         * used instead of the shared buffers when laid out by a LayoutManagerHelper other than VirtualLayoutManager
+         */
+        private SpanBuffers mOwnSpanBuffers;
+
+        /*
+         * the following arrays are borrowed from the LayoutManager's shared SpanBuffers in each layoutViews
+         */
+
         private View[] mSet;
 
         /**
@@ -957,6 +992,14 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
             }
         }
 
+        public void onInvalidateSpanIndexCache(int position) {
+            mSpanSizeLookup.invalidateSpanIndexCache(position);
+            for (Map.Entry<Range<Integer>, GridRangeStyle> entry : mChildren.entrySet()) {
+                GridRangeStyle rangeStyle = entry.getValue();
+                rangeStyle.onInvalidateSpanIndexCache(position);
+            }
+        }
+
         public static int computeEndAlignOffset(GridRangeStyle rangeStyle, boolean layoutInVertical) {
             int offset = layoutInVertical ? rangeStyle.mMarginBottom + rangeStyle.mPaddingBottom : rangeStyle.mMarginRight + rangeStyle.mPaddingRight;
             int endPosition = rangeStyle.getRange().getUpper().intValue();
@@ -1003,7 +1046,7 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         public void setRange(int start, int end) {
             super.setRange(start, end);
             mSpanSizeLookup.setStartPosition(start);
-            mSpanSizeLookup.invalidateSpanIndexCache();
+            mSpanSizeLookup.invalidateSpanIndexCache(end + 1);
         }
 
         public void setGap(int gap) {
@@ -1068,27 +1111,27 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
             }
             mSpanCount = spanCount;
             mSpanSizeLookup.invalidateSpanIndexCache();
-
-            ensureSpanCount();
         }
 
         public int getSpanCount() {
             return mSpanCount;
         }
 
-        private void ensureSpanCount() {
-
-            if (mSet == null || mSet.length != mSpanCount) {
-                mSet = new View[mSpanCount];
-            }
-
-            if (mSpanIndices == null || mSpanIndices.length != mSpanCount) {
-                mSpanIndices = new int[mSpanCount];
+        private void ensureSpanCount(LayoutManagerHelper helper) {
+            final SpanBuffers buffers;
+            if (helper instanceof VirtualLayoutManager) {
+                buffers = ((VirtualLayoutManager) helper).getSpanBuffers();
+            } else {
+                if (mOwnSpanBuffers == null) {
+                    mOwnSpanBuffers = new SpanBuffers();
+                }
+                buffers = mOwnSpanBuffers;
             }
+            buffers.ensureSpanCount(mSpanCount);
 
-            if (mSpanCols == null || mSpanCols.length != mSpanCount) {
-                mSpanCols = new int[mSpanCount];
-            }
+            mSet = buffers.mSet;
+            mSpanIndices = buffers.mSpanIndices;
+            mSpanCols = buffers.mSpanCols;
         }
 
     }
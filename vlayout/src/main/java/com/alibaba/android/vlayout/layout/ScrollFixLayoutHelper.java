@@ -66,11 +66,11 @@ public class ScrollFixLayoutHelper extends FixLayoutHelper {
         switch (mShowType) {
             case SHOW_ON_ENTER:
                 // when previous item is entering
-                return endPosition >= getRange().getLower() - 1;
+                return endPosition >= getRangeStart() - 1;
             case SHOW_ON_LEAVE:
                 // show on leave from top
                 // when next item is the first one in screen
-                return startPosition >= getRange().getLower() + 1;
+                return startPosition >= getRangeStart() + 1;
             case SHOW_ALWAYS:
             default:
                 // default is always
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout.layout;
+
+import android.view.View;
+
+/**
+ * Scratch arrays shared by grid layoutHelpers of the same LayoutManager. They are only valid inside a single
+ * <code>layoutViews</code> call and grow to the max span count, never shrink.
+ */
+public final class SpanBuffers {
+
+    View[] mSet = new View[0];
+
+    /**
+     * store index of each span
+     */
+    int[] mSpanIndices = new int[0];
+
+    /**
+     * store size of each span when weights is not empty
+     */
+    int[] mSpanCols = new int[0];
+
+    /**
+     * whether the view is measured with the size of its row directly
+     */
+    boolean[] mMeasureDeferred = new boolean[0];
+
+    /**
+     * decorated size of each view along the main axis, as measured in the first pass
+     */
+    int[] mMeasuredSizes = new int[0];
+
+    /**
+     * Make sure all arrays can hold at least <code>spanCount</code> items
+     *
+     * @param spanCount span count of the current layoutHelper
+     */
+    public void ensureSpanCount(int spanCount) {
+        if (mSet.length >= spanCount) {
+            return;
+        }
+
+        mSet = new View[spanCount];
+        mSpanIndices = new int[spanCount];
+        mSpanCols = new int[spanCount];
+        mMeasureDeferred = new boolean[spanCount];
+        mMeasuredSizes = new int[spanCount];
+    }
+}
@@ -34,7 +34,6 @@ import com.alibaba.android.vlayout.BuildConfig;
 import com.alibaba.android.vlayout.LayoutHelper;
 import com.alibaba.android.vlayout.LayoutManagerHelper;
 import com.alibaba.android.vlayout.OrientationHelperEx;
-import com.alibaba.android.vlayout.Range;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
 
@@ -64,6 +63,15 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
     private static final String LOOKUP_BUNDLE_KEY = "StaggeredGridLayoutHelper_LazySpanLookup";
 
+    private static final String LOOKUP_PACKED_BUNDLE_KEY = "StaggeredGridLayoutHelper_LazySpanLookup_Packed";
+
+    private static final String LOOKUP_OFFSET_BUNDLE_KEY = "StaggeredGridLayoutHelper_LazySpanLookup_Offset";
+
+    /**
+     * Default number of span assignments kept in saved state, centered around the first visible item
+     */
+    public static final int DEFAULT_MAX_SAVED_SPAN_COUNT = 2048;
+
     private static final int INVALID_SPAN_ID = Integer.MIN_VALUE;
     static final int INVALID_LINE = Integer.MIN_VALUE;
 
@@ -92,6 +100,8 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
     private int anchorPosition;
 
+    private int mMaxSavedSpanCount = DEFAULT_MAX_SAVED_SPAN_COUNT;
+
     private WeakReference<VirtualLayoutManager> mLayoutManager = null;
 
     private final Runnable checkForGapsRunnable = new Runnable() {
@@ -144,6 +154,42 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
         return this.mNumLanes;
     }
 
+    /**
+     * Set how many span assignments are written into saved state by {@link #onSaveState(Bundle)}.
+     * Only a window around the first visible item is kept, items out of the window are reassigned
+     * lazily after restoring.
+     *
+     * @param maxSavedSpanCount max count of positions to save, a value &lt;= 0 means no limit
+     */
+    public void setMaxSavedSpanCount(int maxSavedSpanCount) {
+        this.mMaxSavedSpanCount = maxSavedSpanCount;
+    }
+
+    public int getMaxSavedSpanCount() {
+        return mMaxSavedSpanCount;
+    }
+
+    /**
+     * @return lane assigned to the item at <code>position</code>, or -1 if it is not assigned yet
+     */
+    public int getSpanIndex(int position) {
+        final int span = mLazySpanLookup.getSpan(position);
+        return span == INVALID_SPAN_ID ? -1 : span;
+    }
+
+    /**
+     * Assign the item at <code>position</code> to a lane before it is laid out, e.g. from a persisted snapshot.
+     * Positions out of range, invalid lanes and items already assigned are ignored.
+     */
+    public void setSpanIndex(int position, int spanIndex) {
+        if (isOutOfRange(position) || spanIndex < 0 || spanIndex >= mNumLanes
+                || mLazySpanLookup.getSpan(position) != INVALID_SPAN_ID) {
+            return;
+        }
+        mLazySpanLookup.ensureSize(position);
+        mLazySpanLookup.mData[position] = spanIndex;
+    }
+
     /**
      * @return the width of the lane
      */
@@ -194,7 +240,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
     public void afterLayout(RecyclerView.Recycler recycler, RecyclerView.State state, int startPosition, int endPosition, int scrolled, LayoutManagerHelper helper) {
         super.afterLayout(recycler, state, startPosition, endPosition, scrolled, helper);
         mLayoutWithAnchor = false;
-        if (startPosition > getRange().getUpper() || endPosition < getRange().getLower()) {
+        if (startPosition > getRangeEnd() || endPosition < getRangeStart()) {
             //do not in visible screen, skip
             return;
         }
@@ -264,8 +310,8 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 currentSpan = mSpans[spanIndex];
             }
             // handle margin for start/end line
-            isStartLine = position - getRange().getLower() < mNumLanes;
-            isEndLine = getRange().getUpper() - position < mNumLanes; //fix the end line condition, edit by longerian
+            isStartLine = position - getRangeStart() < mNumLanes;
+            isEndLine = getRangeEnd() - position < mNumLanes; //fix the end line condition, edit by longerian
 
             if (layoutState.isPreLayout()) {
                 prelayoutViewList.add(view);
@@ -426,7 +472,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
     @Override
     public void onScrollStateChanged(int state, int startPosition,
                                      int endPosition, LayoutManagerHelper helper) {
-        if (startPosition > getRange().getUpper() || endPosition < getRange().getLower()) {
+        if (startPosition > getRangeEnd() || endPosition < getRangeStart()) {
             return;
         }
 
@@ -441,7 +487,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                                   boolean useAnchor, LayoutManagerHelper helper) {
         final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
         final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
-        final View child = helper.findViewByPosition(offset + getRange().getLower());
+        final View child = helper.findViewByPosition(offset + getRangeStart());
 
         if (child == null) {
             return 0;
@@ -500,18 +546,16 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             return;
         }
 
-        final Range<Integer> range = getRange();
-
         // align position, which should check gap for
         final int minPos, maxPos, alignPos;
         if (layoutManager.getReverseLayout()) {
             minPos = layoutManager.findLastVisibleItemPosition();
             maxPos = layoutManager.findFirstVisibleItemPosition();
-            alignPos = range.getUpper() - 1;
+            alignPos = getRangeEnd() - 1;
         } else {
             minPos = layoutManager.findFirstVisibleItemPosition();
             maxPos = layoutManager.findLastCompletelyVisibleItemPosition();
-            alignPos = range.getLower();
+            alignPos = getRangeStart();
         }
 
 
@@ -575,9 +619,6 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                                         alignLine += layoutHelper.getFixedView().getMeasuredHeight();
                                     }
                                 }
-                            } else {
-                                LayoutHelper layoutHelper = layoutManager.findLayoutHelperByPosition(nextPosition);
-                                layoutHelper.getRange();
                             }
                         }
                     }
@@ -951,14 +992,15 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
         super.checkAnchorInfo(state, anchorInfo, helper);
         ensureLanes();
 
-        final Range<Integer> range = getRange();
+        final int rangeStart = getRangeStart();
+        final int rangeEnd = getRangeEnd();
         if (anchorInfo.layoutFromEnd) {
-            if (anchorInfo.position < range.getLower() + mNumLanes - 1) {
-                anchorInfo.position = Math.min(range.getLower() + mNumLanes - 1, range.getUpper());
+            if (anchorInfo.position < rangeStart + mNumLanes - 1) {
+                anchorInfo.position = Math.min(rangeStart + mNumLanes - 1, rangeEnd);
             }
         } else {
-            if (anchorInfo.position > range.getUpper() - (mNumLanes - 1)) {
-                anchorInfo.position = Math.max(range.getLower(), range.getUpper() - (mNumLanes - 1));
+            if (anchorInfo.position > rangeEnd - (mNumLanes - 1)) {
+                anchorInfo.position = Math.max(rangeStart, rangeEnd - (mNumLanes - 1));
             }
         }
 
@@ -999,7 +1041,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
             int offset = INVALID_OFFSET;
             if (!isOutOfRange(anchorPos)) {
-                boolean isStartLine = anchorPos == range.getLower();
+                boolean isStartLine = anchorPos == rangeStart;
                 View view = helper.findViewByPosition(anchorPos);
 
                 if (view != null) {
@@ -1055,14 +1097,36 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
     @Override
     public void onSaveState(Bundle bundle) {
         super.onSaveState(bundle);
-        bundle.putIntArray(LOOKUP_BUNDLE_KEY, mLazySpanLookup.mData);
+        if (mNumLanes >= LazySpanLookup.MAX_PACKED_SPAN) {
+            // lanes can not be packed into one byte, fallback to raw data
+            bundle.putIntArray(LOOKUP_BUNDLE_KEY, mLazySpanLookup.mData);
+            return;
+        }
+
+        int anchor = RecyclerView.NO_POSITION;
+        final VirtualLayoutManager layoutManager = mLayoutManager == null ? null : mLayoutManager.get();
+        if (layoutManager != null && layoutManager.getChildCount() > 0) {
+            anchor = layoutManager.findFirstVisibleItemPosition();
+        }
+        if (anchor == RecyclerView.NO_POSITION) {
+            anchor = getRangeStart();
+        }
+
+        final int offset = mLazySpanLookup.windowStart(anchor, mMaxSavedSpanCount);
+        bundle.putInt(LOOKUP_OFFSET_BUNDLE_KEY, offset);
+        bundle.putByteArray(LOOKUP_PACKED_BUNDLE_KEY, mLazySpanLookup.pack(offset, mMaxSavedSpanCount));
         // TODO: store span info
     }
 
     @Override
     public void onRestoreInstanceState(Bundle bundle) {
         super.onRestoreInstanceState(bundle);
-        mLazySpanLookup.mData = bundle.getIntArray(LOOKUP_BUNDLE_KEY);
+        byte[] packed = bundle.getByteArray(LOOKUP_PACKED_BUNDLE_KEY);
+        if (packed != null) {
+            mLazySpanLookup.unpack(packed, bundle.getInt(LOOKUP_OFFSET_BUNDLE_KEY, 0));
+        } else {
+            mLazySpanLookup.mData = bundle.getIntArray(LOOKUP_BUNDLE_KEY);
+        }
     }
 
 
@@ -1348,6 +1412,12 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
     static class LazySpanLookup {
 
         private static final int MIN_SIZE = 10;
+
+        /**
+         * Spans are packed as <code>span + 1</code> into one unsigned byte, 0 is reserved for {@link #INVALID_SPAN_ID}
+         */
+        static final int MAX_PACKED_SPAN = 0xFF;
+
         int[] mData;
 
         /**
@@ -1427,6 +1497,49 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                     INVALID_SPAN_ID);
         }
 
+        /**
+         * Returns the first position of a window holding at most <code>maxCount</code> items around <code>anchor</code>.
+         */
+        int windowStart(int anchor, int maxCount) {
+            if (mData == null || maxCount <= 0 || mData.length <= maxCount) {
+                return 0;
+            }
+            int start = Math.max(0, anchor - maxCount / 2);
+            return Math.min(start, mData.length - maxCount);
+        }
+
+        /**
+         * Pack spans from <code>offset</code> into bytes, trailing invalid spans are dropped.
+         */
+        byte[] pack(int offset, int maxCount) {
+            if (mData == null || offset >= mData.length) {
+                return new byte[0];
+            }
+            int end = maxCount > 0 ? Math.min(mData.length, offset + maxCount) : mData.length;
+            while (end > offset && mData[end - 1] == INVALID_SPAN_ID) {
+                end--;
+            }
+
+            byte[] packed = new byte[end - offset];
+            for (int i = offset; i < end; i++) {
+                final int span = mData[i];
+                packed[i - offset] = span == INVALID_SPAN_ID ? 0 : (byte) (span + 1);
+            }
+            return packed;
+        }
+
+        void unpack(@NonNull byte[] packed, int offset) {
+            mData = null;
+            if (packed.length == 0) {
+                return;
+            }
+            ensureSize(offset + packed.length - 1);
+            for (int i = 0, size = packed.length; i < size; i++) {
+                final int span = packed[i] & MAX_PACKED_SPAN;
+                mData[offset + i] = span == 0 ? INVALID_SPAN_ID : span - 1;
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,312 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.alibaba.android.vlayout.layout;
+
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.OrientationHelperEx;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
+
+import java.util.Arrays;
+
+import static android.support.v7.widget.LinearLayoutManager.VERTICAL;
+
+/**
+ * Linear layout which pins many section headers to start, one at a time. Header positions are kept in a sorted
+ * int array, so the pinned header and the next one are found by binary search, and the push-out transition only looks
+ * at the next header's view. It replaces registering one {@link StickyLayoutHelper} per section for plain lists.
+ * Reverse layout is not supported.
+ */
+public class StickyHeadersLayoutHelper extends LinearLayoutHelper {
+
+    private static final String TAG = "StickyHeadersHelper";
+
+    /**
+     * header offsets relative to the start of range, sorted and distinct
+     */
+    private int[] mHeaders = new int[0];
+
+    private int mHeaderCount = 0;
+
+    private int mOffset = 0;
+
+    /**
+     * adapter position of the pinned header, -1 means nothing is pinned
+     */
+    private int mPinnedPos = -1;
+
+    private View mPinnedView = null;
+
+    /**
+     * whether the pinned view is laid out in normal flow during current layout pass
+     */
+    private boolean mPinnedInFlow = false;
+
+    private StickyLayoutHelper.StickyListener mStickyListener;
+
+    public StickyHeadersLayoutHelper() {
+        this(0);
+    }
+
+    public StickyHeadersLayoutHelper(int dividerHeight) {
+        this(dividerHeight, 0);
+    }
+
+    public StickyHeadersLayoutHelper(int dividerHeight, int itemCount) {
+        super(dividerHeight, itemCount);
+    }
+
+    /**
+     * Set header positions, each one is an offset from the first item of this layoutHelper
+     *
+     * @param headers header offsets, must not be negative, {@link IllegalArgumentException} will be thrown otherwise
+     */
+    public void setHeaderPositions(int... headers) {
+        int[] sorted = headers == null ? new int[0] : Arrays.copyOf(headers, headers.length);
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0) {
+                throw new IllegalArgumentException("Header position should not be negative. Provided " + sorted[i]);
+            }
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        mHeaders = sorted;
+        mHeaderCount = count;
+    }
+
+    public int getHeaderCount() {
+        return mHeaderCount;
+    }
+
+    /**
+     * @param position adapter position
+     * @return whether item in <code>position</code> is a header
+     */
+    public boolean isHeader(int position) {
+        return Arrays.binarySearch(mHeaders, 0, mHeaderCount, position - getRangeStart()) >= 0;
+    }
+
+    public void setOffset(int offset) {
+        this.mOffset = offset;
+    }
+
+    /**
+     * @return adapter position of the pinned header, or -1 if no header is pinned
+     */
+    public int getPinnedPosition() {
+        return mPinnedView == null ? -1 : mPinnedPos;
+    }
+
+    public void setStickyListener(StickyLayoutHelper.StickyListener stickyListener) {
+        this.mStickyListener = stickyListener;
+    }
+
+    /**
+     * Index of the last header at or before <code>offset</code>, -1 if there is none
+     */
+    private int floorHeaderIndex(int offset) {
+        int index = Arrays.binarySearch(mHeaders, 0, mHeaderCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    @Override
+    protected View nextChildView(RecyclerView.Recycler recycler, LayoutStateWrapper layoutState,
+                                 LayoutManagerHelper helper, LayoutChunkResult result) {
+        if (mPinnedView != null && layoutState.getCurrentPosition() == mPinnedPos) {
+            // reuse the pinned view in normal flow, afterLayout decides whether to pin it again
+            layoutState.skipCurrentPosition();
+            helper.addChildView(layoutState, mPinnedView);
+            mPinnedInFlow = true;
+            return mPinnedView;
+        }
+        return super.nextChildView(recycler, layoutState, helper, result);
+    }
+
+    @Override
+    public void beforeLayout(RecyclerView.Recycler recycler, RecyclerView.State state, LayoutManagerHelper helper) {
+        super.beforeLayout(recycler, state, helper);
+
+        if (mPinnedView != null && helper.isViewHolderUpdated(mPinnedView)) {
+            unpin(recycler, helper, mPinnedInFlow);
+        }
+    }
+
+    @Override
+    public void afterLayout(RecyclerView.Recycler recycler, RecyclerView.State state, int startPosition, int endPosition,
+                            int scrolled, LayoutManagerHelper helper) {
+        super.afterLayout(recycler, state, startPosition, endPosition, scrolled, helper);
+
+        if (state.isPreLayout()) {
+            return;
+        }
+
+        final boolean inFlow = mPinnedInFlow;
+        mPinnedInFlow = false;
+
+        final int rangeStart = getRangeStart();
+        final int rangeEnd = getRangeEnd();
+        int index = -1;
+        if (!helper.getReverseLayout() && mHeaderCount > 0 && startPosition >= rangeStart && startPosition <= rangeEnd) {
+            index = floorHeaderIndex(startPosition - rangeStart);
+        }
+
+        if (index < 0) {
+            unpin(recycler, helper, inFlow);
+            return;
+        }
+
+        final int headerPos = rangeStart + mHeaders[index];
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        final int pinLine = orientationHelper.getStartAfterPadding() + mOffset;
+
+        if (mPinnedView != null && mPinnedPos != headerPos) {
+            unpin(recycler, helper, inFlow);
+        }
+
+        if (mPinnedView == null || inFlow) {
+            View view = mPinnedView != null ? mPinnedView : helper.findViewByPosition(headerPos);
+            if (view != null && orientationHelper.getDecoratedStart(view) >= pinLine) {
+                // header is visible in normal flow
+                unpin(recycler, helper, true);
+                return;
+            }
+
+            if (view == null) {
+                view = recycler.getViewForPosition(headerPos);
+                measureHeader(view, helper);
+            }
+            helper.addFixedView(view);
+
+            if (mPinnedView != view) {
+                mPinnedView = view;
+                mPinnedPos = headerPos;
+                if (mStickyListener != null) {
+                    mStickyListener.onSticky(headerPos, view);
+                }
+            }
+        }
+
+        final int size = orientationHelper.getDecoratedMeasurement(mPinnedView);
+        int start = pinLine;
+
+        // push out by the next header, or by the end of this layoutHelper
+        final int nextPos = index + 1 < mHeaderCount ? rangeStart + mHeaders[index + 1] : rangeEnd + 1;
+        if (nextPos <= endPosition) {
+            View next = helper.findViewByPosition(nextPos);
+            if (next != null) {
+                start = Math.min(start, orientationHelper.getDecoratedStart(next) - size);
+            }
+        } else if (rangeEnd <= endPosition) {
+            View last = helper.findViewByPosition(rangeEnd);
+            if (last != null) {
+                start = Math.min(start, orientationHelper.getDecoratedEnd(last) - size);
+            }
+        }
+
+        int left, top, right, bottom;
+        if (helper.getOrientation() == VERTICAL) {
+            if (helper.isDoLayoutRTL()) {
+                right = helper.getContentWidth() - helper.getPaddingRight() - mMarginRight - mPaddingRight;
+                left = right - orientationHelper.getDecoratedMeasurementInOther(mPinnedView);
+            } else {
+                left = helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
+                right = left + orientationHelper.getDecoratedMeasurementInOther(mPinnedView);
+            }
+            top = start;
+            bottom = top + size;
+        } else {
+            top = helper.getPaddingTop() + mMarginTop + mPaddingTop;
+            bottom = top + orientationHelper.getDecoratedMeasurementInOther(mPinnedView);
+            left = start;
+            right = left + size;
+        }
+        helper.layoutChildWithMargins(mPinnedView, left, top, right, bottom);
+
+        if (VirtualLayoutManager.sDebuggable) {
+            Log.d(TAG, "pinned header: " + mPinnedPos + " start: " + start);
+        }
+    }
+
+    /**
+     * Drop the pinned header, its view is recycled unless it has been put back to normal flow
+     */
+    private void unpin(RecyclerView.Recycler recycler, LayoutManagerHelper helper, boolean inFlow) {
+        if (mPinnedView == null) {
+            return;
+        }
+
+        final View view = mPinnedView;
+        mPinnedView = null;
+        if (mStickyListener != null) {
+            mStickyListener.onUnSticky(mPinnedPos, view);
+        }
+        if (!inFlow) {
+            helper.removeChildView(view);
+            recycler.recycleView(view);
+        }
+        mPinnedPos = -1;
+    }
+
+    private void measureHeader(View view, LayoutManagerHelper helper) {
+        final VirtualLayoutManager.LayoutParams params = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+
+        final int widthSize = helper.getContentWidth() - helper.getPaddingLeft() - helper.getPaddingRight()
+                - getHorizontalMargin() - getHorizontalPadding();
+        final int heightSize = helper.getContentHeight() - helper.getPaddingTop() - helper.getPaddingBottom()
+                - getVerticalMargin() - getVerticalPadding();
+        final int widthSpec = helper.getChildMeasureSpec(widthSize, params.width, !layoutInVertical);
+        final int heightSpec = helper.getChildMeasureSpec(heightSize, params.height, layoutInVertical);
+        helper.measureChildWithMargins(view, widthSpec, heightSpec);
+    }
+
+    @Nullable
+    @Override
+    public View getFixedView() {
+        return mPinnedView;
+    }
+
+    @Override
+    public void onClear(LayoutManagerHelper helper) {
+        super.onClear(helper);
+        if (mPinnedView != null) {
+            helper.recycleView(mPinnedView);
+            helper.removeChildView(mPinnedView);
+            mPinnedView = null;
+            mPinnedPos = -1;
+            mPinnedInFlow = false;
+        }
+    }
+}
@@ -785,7 +785,7 @@ public class StickyLayoutHelper extends FixAreaLayoutHelper {
             List<LayoutHelper> helperList = ((VirtualLayoutManager) helper).getLayoutHelpers();
             for (LayoutHelper helperItem : helperList) {
                 if (helperItem.isFixLayout()) {
-                    if (helperItem.getRange().getUpper() < this.getRange().getLower()) {
+                    if (helperItem.getRangeEnd() < this.getRangeStart()) {
                         View view = helperItem.getFixedView();
                         if (view != null) {
                             offset += view.getHeight();